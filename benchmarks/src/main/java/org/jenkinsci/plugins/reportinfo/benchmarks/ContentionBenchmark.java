@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jenkinsci.plugins.reportinfo.ReportCache;
+import org.jenkinsci.plugins.reportinfo.ReportStore;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of the view reads while builds write their notifications. The
+ * readers go through the {@link ReportCache} without lock, the writers
+ * replace the files under a striped lock as <code>ReportInfo.write</code>
+ * does.
+ *
+ * @author Gael COLIN
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ContentionBenchmark {
+
+    @Param({"64"})
+    public int jobs;
+
+    @Param({"10000"})
+    public int issues;
+
+    private Path dir;
+    private File[] files;
+    private Lock[] locks;
+    private JobNotification notification;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("report-info-contention");
+        notification = ReportGenerator.notifications(issues);
+        files = new File[jobs];
+        locks = new Lock[16];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        for (int i = 0; i < jobs; i++) {
+            File job = dir.resolve("job" + i).toFile();
+            job.mkdirs();
+            files[i] = new File(job, ReportStore.FILENAME);
+            ReportStore.write(notification, files[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ReportCache.get().clear();
+        ReportGenerator.delete(dir);
+    }
+
+    @Benchmark
+    @Group("view")
+    @GroupThreads(4)
+    public JobNotification read() {
+        File file = files[ThreadLocalRandom.current().nextInt(files.length)];
+        return ReportCache.get().get(file, file.getParentFile().getName(), new ReportCache.Loader() {
+            @Override
+            public JobNotification load(File file) {
+                try {
+                    return ReportStore.read(file);
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    @Group("view")
+    @GroupThreads(4)
+    public File write() throws IOException {
+        int job = ThreadLocalRandom.current().nextInt(files.length);
+        Lock lock = locks[job % locks.length];
+        lock.lock();
+        try {
+            ReportStore.write(notification, files[job]);
+            ReportCache.get().invalidate(files[job]);
+        } finally {
+            lock.unlock();
+        }
+        return files[job];
+    }
+}
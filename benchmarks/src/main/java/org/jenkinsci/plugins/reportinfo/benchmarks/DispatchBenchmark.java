@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jenkinsci.plugins.reportinfo.builder.Checkstyle;
+import org.jenkinsci.plugins.reportinfo.builder.FindBugs;
+import org.jenkinsci.plugins.reportinfo.builder.NotificationBuilder;
+import org.jenkinsci.plugins.reportinfo.builder.PMD;
+import org.jenkinsci.plugins.reportinfo.builder.ReportMatcher;
+import org.jenkinsci.plugins.reportinfo.builder.Tests;
+import org.jenkinsci.plugins.reportinfo.builder.XmlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Find the reader of the files of a workspace: the path patterns and the
+ * detection by root element.
+ *
+ * @author Gael COLIN
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DispatchBenchmark {
+
+    private ReportMatcher matcher;
+    private final List<String> paths = new ArrayList<>();
+    private Path dir;
+    private Path pom;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        NotificationBuilder[] builders = {new Checkstyle(), new FindBugs(), new PMD(), new Tests()};
+        String[] includes = new String[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            includes[i] = builders[i].getDefaultIncludes();
+        }
+        matcher = new ReportMatcher(builders, includes);
+        for (int i = 0; i < 1000; i++) {
+            String module = "module" + (i % 50) + "/";
+            switch (i % 8) {
+                case 0:
+                    paths.add(module + "target/checkstyle-result.xml");
+                    break;
+                case 1:
+                    paths.add(module + "target/surefire-reports/TEST-com.example.Class" + i + "Test.xml");
+                    break;
+                case 2:
+                    paths.add(module + "build/reports/pmd/main.xml");
+                    break;
+                case 3:
+                    paths.add(module + "pom.xml");
+                    break;
+                default:
+                    paths.add(module + "src/main/java/com/example/p" + (i % 7) + "/Class" + i + ".java");
+                    break;
+            }
+        }
+        dir = Files.createTempDirectory("report-info-dispatch");
+        pom = dir.resolve("pom.xml");
+        StringBuilder content = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<!-- license header -->\n<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        for (int i = 0; i < 1000; i++) {
+            content.append("<dependency><artifactId>a").append(i).append("</artifactId></dependency>\n");
+        }
+        Files.write(pom, content.append("</project>\n").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ReportGenerator.delete(dir);
+    }
+
+    /**
+     * Match 1000 paths.
+     */
+    @Benchmark
+    public void match(Blackhole blackhole) {
+        for (String path : paths) {
+            blackhole.consume(matcher.match(path));
+        }
+    }
+
+    /**
+     * Read the root element of a file that is not a report.
+     */
+    @Benchmark
+    public String rootElement() throws IOException {
+        return XmlUtils.rootElement(pom);
+    }
+}
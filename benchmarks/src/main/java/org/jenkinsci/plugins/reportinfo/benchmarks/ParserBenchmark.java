@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.jenkinsci.plugins.reportinfo.builder.AllNotificationBuilder;
+import org.jenkinsci.plugins.reportinfo.builder.Checkstyle;
+import org.jenkinsci.plugins.reportinfo.builder.FindBugs;
+import org.jenkinsci.plugins.reportinfo.builder.NotificationBuilder;
+import org.jenkinsci.plugins.reportinfo.builder.PMD;
+import org.jenkinsci.plugins.reportinfo.builder.ScanOptions;
+import org.jenkinsci.plugins.reportinfo.builder.Tests;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.ReportIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parse one report with its {@link NotificationBuilder}.
+ *
+ * @author Gael COLIN
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ParserBenchmark {
+
+    /**
+     * A logger discarding the output.
+     */
+    static final PrintStream NULL_LOGGER = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+    });
+
+    @Param({"CHECKSTYLE", "PMD", "FINDBUG", "TEST"})
+    public NotificationType type;
+
+    @Param({"1000", "100000", "1000000"})
+    public int issues;
+
+    private Path dir;
+    private Path file;
+    private NotificationBuilder parser;
+    private AllNotificationBuilder builder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("report-info-parser");
+        file = dir.resolve(ReportGenerator.getFileName(type));
+        ReportGenerator.write(type, issues, file);
+        for (NotificationBuilder candidate : new NotificationBuilder[]{new Checkstyle(), new FindBugs(), new PMD(), new Tests()}) {
+            if (candidate.getType() == type) {
+                parser = candidate;
+            }
+        }
+        builder = new AllNotificationBuilder(new ReportIndex(), dir, new ScanOptions(), NULL_LOGGER);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ReportGenerator.delete(dir);
+    }
+
+    @Benchmark
+    public JobNotification parse() throws IOException {
+        JobNotification jn = new JobNotification();
+        try (InputStream in = Files.newInputStream(file)) {
+            parser.parse(in, jn, builder);
+        }
+        return jn;
+    }
+}
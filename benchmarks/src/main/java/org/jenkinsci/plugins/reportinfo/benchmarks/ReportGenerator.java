@@ -0,0 +1,267 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
+
+/**
+ * Generate synthetic reports with the structure of the real ones.
+ *
+ * @author Gael COLIN
+ */
+public final class ReportGenerator {
+
+    /**
+     * The number of issues in a source file or a test class.
+     */
+    private static final int ISSUES_PER_FILE = 20;
+    private static final String[] CHECKSTYLE_RULES = {
+        "com.puppycrawl.tools.checkstyle.checks.javadoc.JavadocMethodCheck",
+        "com.puppycrawl.tools.checkstyle.checks.sizes.LineLengthCheck",
+        "com.puppycrawl.tools.checkstyle.checks.whitespace.WhitespaceAroundCheck",
+        "com.puppycrawl.tools.checkstyle.checks.coding.MagicNumberCheck"
+    };
+    private static final String[] CHECKSTYLE_SEVERITIES = {"error", "warning", "info"};
+    private static final String[] PMD_RULES = {"UnusedLocalVariable", "EmptyCatchBlock", "GodClass", "TooManyMethods"};
+    private static final String[] FINDBUGS_TYPES = {"NP_NULL_ON_SOME_PATH", "DM_DEFAULT_ENCODING", "EI_EXPOSE_REP", "SE_BAD_FIELD"};
+    private static final String[] FINDBUGS_ABBREVS = {"NP", "Dm", "EI", "Se"};
+
+    private ReportGenerator() {
+    }
+
+    /**
+     * Write a report.
+     *
+     * @param type the type of report
+     * @param issues the number of issues
+     * @param file the report file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(NotificationType type, int issues, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 64 * 1024)) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            switch (type) {
+                case CHECKSTYLE:
+                    checkstyle(issues, out);
+                    break;
+                case PMD:
+                    pmd(issues, out);
+                    break;
+                case FINDBUG:
+                    findbugs(issues, out);
+                    break;
+                default:
+                    surefire(issues, out);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @param type the type of report
+     * @return the name of a report of this type matching the default patterns
+     */
+    public static String getFileName(NotificationType type) {
+        switch (type) {
+            case CHECKSTYLE:
+                return "checkstyle-result.xml";
+            case PMD:
+                return "pmd.xml";
+            case FINDBUG:
+                return "findbugs.xml";
+            default:
+                return "TEST-com.example.GeneratedTest.xml";
+        }
+    }
+
+    private static void checkstyle(int issues, Writer out) throws IOException {
+        out.write("<checkstyle version=\"8.0\">\n");
+        for (int i = 0; i < issues; i++) {
+            if (i % ISSUES_PER_FILE == 0) {
+                if (i > 0) {
+                    out.write("</file>\n");
+                }
+                out.write("<file name=\"/workspace/src/main/java/com/example/p" + (i / 1000) + "/Class"
+                        + (i / ISSUES_PER_FILE) + ".java\">\n");
+            }
+            out.write("<error line=\"" + (i % 500 + 1) + "\" column=\"" + (i % 80) + "\" severity=\""
+                    + CHECKSTYLE_SEVERITIES[i % CHECKSTYLE_SEVERITIES.length]
+                    + "\" message=\"Line is longer than 120 characters (found " + (121 + i % 40)
+                    + ").\" source=\"" + CHECKSTYLE_RULES[i % CHECKSTYLE_RULES.length] + "\"/>\n");
+        }
+        if (issues > 0) {
+            out.write("</file>\n");
+        }
+        out.write("</checkstyle>\n");
+    }
+
+    private static void pmd(int issues, Writer out) throws IOException {
+        out.write("<pmd version=\"5.8.1\" timestamp=\"2017-06-01T10:00:00.000\">\n");
+        for (int i = 0; i < issues; i++) {
+            if (i % ISSUES_PER_FILE == 0) {
+                if (i > 0) {
+                    out.write("</file>\n");
+                }
+                out.write("<file name=\"/workspace/src/main/java/com/example/p" + (i / 1000) + "/Class"
+                        + (i / ISSUES_PER_FILE) + ".java\">\n");
+            }
+            String rule = PMD_RULES[i % PMD_RULES.length];
+            out.write("<violation beginline=\"" + (i % 500 + 1) + "\" endline=\"" + (i % 500 + 2)
+                    + "\" begincolumn=\"" + (i % 80) + "\" endcolumn=\"" + (i % 80 + 10) + "\" rule=\"" + rule
+                    + "\" ruleset=\"Best Practices\" package=\"com.example\" class=\"Class" + (i / ISSUES_PER_FILE)
+                    + "\" priority=\"" + (i % 5 + 1) + "\">\n"
+                    + "Avoid the rule " + rule + " on the variable 'v" + i + "'.\n"
+                    + "</violation>\n");
+        }
+        if (issues > 0) {
+            out.write("</file>\n");
+        }
+        out.write("</pmd>\n");
+    }
+
+    private static void findbugs(int issues, Writer out) throws IOException {
+        out.write("<BugCollection version=\"3.0.1\" sequence=\"0\" timestamp=\"1496311200000\">\n");
+        for (int i = 0; i < issues; i++) {
+            String classname = "com.example.p" + (i / 1000) + ".Class" + (i / ISSUES_PER_FILE);
+            out.write("<BugInstance type=\"" + FINDBUGS_TYPES[i % FINDBUGS_TYPES.length] + "\" priority=\""
+                    + (i % 3 + 1) + "\" abbrev=\"" + FINDBUGS_ABBREVS[i % FINDBUGS_ABBREVS.length]
+                    + "\" category=\"CORRECTNESS\">\n"
+                    + "<Class classname=\"" + classname + "\"><SourceLine classname=\"" + classname
+                    + "\" start=\"1\" end=\"500\"/></Class>\n"
+                    + "<Method classname=\"" + classname + "\" name=\"m" + i + "\" signature=\"()V\">"
+                    + "<SourceLine classname=\"" + classname + "\" start=\"" + (i % 500 + 1) + "\"/></Method>\n"
+                    + "<SourceLine classname=\"" + classname + "\" start=\"" + (i % 500 + 3) + "\" end=\""
+                    + (i % 500 + 3) + "\"/>\n"
+                    + "</BugInstance>\n");
+        }
+        out.write("</BugCollection>\n");
+    }
+
+    private static void surefire(int failures, Writer out) throws IOException {
+        out.write("<testsuite name=\"com.example.GeneratedTest\" tests=\"" + failures * 2 + "\" failures=\""
+                + failures + "\" errors=\"0\" skipped=\"0\">\n");
+        for (int i = 0; i < failures; i++) {
+            String classname = "com.example.p" + (i / 1000) + ".Class" + (i / ISSUES_PER_FILE) + "Test";
+            out.write("<testcase name=\"testPass" + i + "\" classname=\"" + classname + "\" time=\"0.001\"/>\n");
+            out.write("<testcase name=\"testFail" + i + "\" classname=\"" + classname + "\" time=\"0.002\">\n"
+                    + "<failure message=\"expected:&lt;" + i + "&gt; but was:&lt;" + (i + 1)
+                    + "&gt;\" type=\"java.lang.AssertionError\">java.lang.AssertionError: expected:&lt;" + i
+                    + "&gt; but was:&lt;" + (i + 1) + "&gt;\n"
+                    + "\tat org.junit.Assert.fail(Assert.java:88)\n"
+                    + "\tat " + classname + ".testFail" + i + "(" + "Class.java:" + (i % 500 + 1) + ")\n"
+                    + "</failure>\n"
+                    + "<system-out>output of the test " + i + "</system-out>\n"
+                    + "</testcase>\n");
+        }
+        out.write("</testsuite>\n");
+    }
+
+    /**
+     * Create the notifications of a job without parsing.
+     *
+     * @param issues the number of issues
+     * @return the notifications, of all the types
+     */
+    public static JobNotification notifications(int issues) {
+        JobNotification jn = new JobNotification();
+        jn.setLastModified(System.currentTimeMillis());
+        NotificationType[] types = NotificationType.values();
+        Severity[] severities = Severity.values();
+        for (int i = 0; i < issues; i++) {
+            NotificationType type = types[i % types.length];
+            jn.getList().add(new NotificationDetail(type, severities[i % severities.length],
+                    CHECKSTYLE_RULES[i % CHECKSTYLE_RULES.length],
+                    "/workspace/src/main/java/com/example/p" + (i / 1000) + "/Class" + (i / ISSUES_PER_FILE) + ".java",
+                    i % 500 + 1, i % 80, "Line is longer than 120 characters (found " + (121 + i % 40) + ")."));
+        }
+        return jn;
+    }
+
+    /**
+     * Generate a workspace of modules with one report of each type, and some
+     * source folders that are not reports.
+     *
+     * @param root the workspace
+     * @param modules the number of modules
+     * @param issues the number of issues of each report
+     * @param noise the number of files outside of the reports in each module
+     * @throws IOException if a file cannot be written
+     */
+    public static void workspace(Path root, int modules, int issues, int noise) throws IOException {
+        for (int m = 0; m < modules; m++) {
+            Path module = root.resolve("module" + m);
+            for (NotificationType type : NotificationType.values()) {
+                Path dir = module.resolve(type == NotificationType.TEST ? "target/surefire-reports" : "target");
+                write(type, issues, dir.resolve(getFileName(type)));
+            }
+            Files.createDirectories(module.resolve("src/main/java/com/example"));
+            Files.write(module.resolve("pom.xml"), "<project/>".getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < noise; i++) {
+                Path dir = module.resolve(i % 2 == 0 ? "src/main/java/com/example" : "node_modules/lib" + (i % 10));
+                Files.createDirectories(dir);
+                Files.write(dir.resolve("File" + i + (i % 3 == 0 ? ".xml" : ".java")),
+                        "<beans/>".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Delete a directory and its content.
+     *
+     * @param root the directory
+     * @throws IOException if a file cannot be deleted
+     */
+    public static void delete(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                    throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import org.jenkinsci.plugins.reportinfo.ReportStore;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Write and read the notifications of a job: the binary file written by
+ * <code>ReportInfo.write</code>, and the legacy XML file still read for the
+ * jobs not migrated.
+ *
+ * @author Gael COLIN
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class StoreBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int issues;
+
+    private Path dir;
+    private JobNotification notification;
+    private File binary;
+    private File xml;
+    private File output;
+    private JAXBContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, JAXBException {
+        dir = Files.createTempDirectory("report-info-store");
+        notification = ReportGenerator.notifications(issues);
+        binary = dir.resolve(ReportStore.FILENAME).toFile();
+        ReportStore.write(notification, binary);
+        context = JAXBContext.newInstance(JobNotification.class);
+        xml = dir.resolve(ReportStore.LEGACY_FILENAME).toFile();
+        Marshaller marshaller = context.createMarshaller();
+        marshaller.marshal(notification, xml);
+        output = dir.resolve("output.dat").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ReportGenerator.delete(dir);
+    }
+
+    @Benchmark
+    public File write() throws IOException {
+        ReportStore.write(notification, output);
+        return output;
+    }
+
+    @Benchmark
+    public JobNotification read() throws IOException {
+        return ReportStore.read(binary);
+    }
+
+    @Benchmark
+    public Object unmarshalLegacy() throws JAXBException {
+        return context.createUnmarshaller().unmarshal(xml);
+    }
+}
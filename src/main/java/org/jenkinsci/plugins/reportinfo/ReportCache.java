@@ -0,0 +1,206 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+
+/**
+ * Controller-wide cache of the parsed reportinfo files.
+ *
+ * <p>
+ * The entries are evicted in LRU order when the estimated heap weight exceeds
+ * the limit (system property
+ * <code>org.jenkinsci.plugins.reportinfo.ReportCache.maxWeight</code>, in
+ * bytes). An entry is reloaded if the file has been modified outside of
+ * {@link ReportInfo#write}.</p>
+ *
+ * @author Gael COLIN
+ */
+public final class ReportCache {
+
+    private static final ReportCache INSTANCE = new ReportCache(
+            Long.getLong(ReportCache.class.getName() + ".maxWeight", 64L * 1024 * 1024));
+
+    /**
+     * Approximate size of an object header plus a reference.
+     */
+    private static final int OBJECT_WEIGHT = 32;
+
+    private final long maxWeight;
+    private long weight;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    ReportCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public static ReportCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the notifications of a job from the cache or from the disk.
+     *
+     * @param file the reportinfo file
+     * @param jobName the name set on the details
+     * @param loader the loader used on a cache miss
+     * @return the notifications or null if the file does not exist or cannot be
+     * read
+     */
+    public JobNotification get(File file, String jobName, Loader loader) {
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        if (lastModified == 0L) {
+            invalidate(file);
+            return null;
+        }
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.lastModified == lastModified && entry.length == file.length()) {
+                hits.incrementAndGet();
+                return entry.notification;
+            }
+        }
+        misses.incrementAndGet();
+        JobNotification notification = loader.load(file);
+        if (notification == null) {
+            return null;
+        }
+        for (NotificationDetail detail : notification.getList()) {
+            detail.setJob(jobName);
+        }
+        put(key, new Entry(notification, lastModified, file.length(), weigh(notification)));
+        return notification;
+    }
+
+    /**
+     * Remove a file from the cache.
+     *
+     * @param file the reportinfo file
+     */
+    public synchronized void invalidate(File file) {
+        Entry entry = entries.remove(file.getAbsolutePath());
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry old = entries.put(key, entry);
+        if (old != null) {
+            weight -= old.weight;
+        }
+        weight += entry.weight;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            if (eldest.getValue() == entry) {
+                // keep at least the entry being returned
+                continue;
+            }
+            weight -= eldest.getValue().weight;
+            it.remove();
+            evictions.incrementAndGet();
+        }
+        if (ReportInfo.LOG.isLoggable(Level.FINE)) {
+            ReportInfo.LOG.log(Level.FINE, "report cache: {0} entries, {1} bytes, hits={2}, misses={3}, evictions={4}",
+                    new Object[]{entries.size(), weight, hits.get(), misses.get(), evictions.get()});
+        }
+    }
+
+    static long weigh(JobNotification notification) {
+        long w = OBJECT_WEIGHT;
+        for (NotificationDetail detail : notification.getList()) {
+            // the files and rules are shared between the details
+            w += OBJECT_WEIGHT * 3;
+            String message = detail.getLegacyMessage() == null ? detail.getRawMessage() : detail.getLegacyMessage();
+            if (message != null) {
+                w += OBJECT_WEIGHT + 2L * message.length();
+            }
+        }
+        return w;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Read a reportinfo file.
+     */
+    public interface Loader {
+
+        JobNotification load(File file);
+    }
+
+    private static final class Entry {
+
+        private final JobNotification notification;
+        private final long lastModified;
+        private final long length;
+        private final long weight;
+
+        Entry(JobNotification notification, long lastModified, long length, long weight) {
+            this.notification = notification;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import hudson.model.Job;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+
+/**
+ * History of the number of issues of each build of a job.
+ *
+ * <p>
+ * The file is made of fixed size records appended by each build, so that a
+ * record can be read at its offset without reading the details. The integers
+ * are big-endian:</p>
+ * <pre>
+ * "RHST" version:byte typeCount:byte reserved:short retention:int
+ * (build:int timestamp:long (count:int total:int)*)*
+ * </pre>
+ * <p>
+ * The file is rewritten with the last <code>retention</code> records when it
+ * holds more than one and a half times that number.</p>
+ *
+ * @author Gael COLIN
+ */
+public final class ReportHistory {
+
+    public static final String FILENAME = "reportinfo-history.dat";
+    private static final int MAGIC = 0x52485354;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int TYPES = NotificationType.values().length;
+    private static final int RECORD_SIZE = 12 + 8 * TYPES;
+
+    private final int[] builds;
+    private final long[] timestamps;
+    /**
+     * The counts then the totals of each record, by type ordinal.
+     */
+    private final int[][] counts;
+
+    private ReportHistory(int[] builds, long[] timestamps, int[][] counts) {
+        this.builds = builds;
+        this.timestamps = timestamps;
+        this.counts = counts;
+    }
+
+    /**
+     * Append the counts of a build to the history of its job.
+     *
+     * @param job the job
+     * @param build the number of the build
+     * @param timestamp the time of the build
+     * @param counts the number of details of each type
+     * @param totals the number of issues of each type
+     * @param retention the number of builds to keep
+     * @throws IOException if the file cannot be written
+     */
+    public static void append(Job job, int build, long timestamp, int[] counts, int[] totals, int retention)
+            throws IOException {
+        File file = new File(job.getRootDir(), FILENAME);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putInt(build).putLong(timestamp);
+        for (int i = 0; i < TYPES; i++) {
+            record.putInt(counts[i]).putInt(Math.max(counts[i], totals[i]));
+        }
+        record.flip();
+
+        Lock lock = ReportInfo.getLock(job);
+        lock.lock();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long records = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.size() >= HEADER_SIZE && channel.read(header, 0) == HEADER_SIZE
+                    && header.getInt(0) == MAGIC && header.get(4) == VERSION && header.get(5) == TYPES) {
+                // a record partially written by a failed build is overwritten
+                records = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+            }
+            header.clear();
+            header.putInt(MAGIC).put((byte) VERSION).put((byte) TYPES).putShort((short) 0).putInt(retention);
+            header.flip();
+            writeFully(channel, header, 0);
+            long position = HEADER_SIZE + records * RECORD_SIZE;
+            writeFully(channel, record, position);
+            channel.truncate(position + RECORD_SIZE);
+            records++;
+
+            if (records > retention + retention / 2) {
+                compact(channel, file, records, retention);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void compact(FileChannel channel, File file, long records, int retention) throws IOException {
+        File tmp = ReportStore.getTempFile(file);
+        try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            writeFully(out, header, 0);
+            out.position(HEADER_SIZE);
+            long from = HEADER_SIZE + (records - retention) * RECORD_SIZE;
+            long length = retention * (long) RECORD_SIZE;
+            long done = 0;
+            while (done < length) {
+                done += channel.transferTo(from + done, length - done, out);
+            }
+        }
+        try {
+            ReportStore.replace(tmp, file);
+        } catch (IOException ex) {
+            // the file may be mapped by a reader on some systems, try again on the next build
+            ReportInfo.LOG.log(Level.FINE, "cannot compact " + file, ex);
+            if (!tmp.delete()) {
+                ReportInfo.LOG.log(Level.WARNING, "cannot delete {0}", tmp);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Read the last records of the history of a job.
+     *
+     * @param job the job
+     * @return the history or null if the job has no history
+     */
+    public static ReportHistory read(Job job) {
+        File file = new File(job.getRootDir(), FILENAME);
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION || buffer.get(5) != TYPES) {
+                ReportInfo.LOG.log(Level.WARNING, "unsupported history file {0}", file);
+                return null;
+            }
+            int retention = buffer.getInt(8);
+            long records = (size - HEADER_SIZE) / RECORD_SIZE;
+            int n = (int) Math.min(records, Math.max(retention, 1));
+            int[] builds = new int[n];
+            long[] timestamps = new long[n];
+            int[][] counts = new int[n][TYPES * 2];
+            int offset = (int) (HEADER_SIZE + (records - n) * RECORD_SIZE);
+            for (int r = 0; r < n; r++, offset += RECORD_SIZE) {
+                builds[r] = buffer.getInt(offset);
+                timestamps[r] = buffer.getLong(offset + 4);
+                for (int i = 0; i < TYPES; i++) {
+                    counts[r][i] = buffer.getInt(offset + 12 + 8 * i);
+                    counts[r][TYPES + i] = buffer.getInt(offset + 16 + 8 * i);
+                }
+            }
+            return new ReportHistory(builds, timestamps, counts);
+        } catch (IOException ex) {
+            ReportInfo.LOG.log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+
+    public int size() {
+        return builds.length;
+    }
+
+    public int getBuild(int record) {
+        return builds[record];
+    }
+
+    public long getTimestamp(int record) {
+        return timestamps[record];
+    }
+
+    public int getCount(int record, NotificationType type) {
+        return counts[record][type.ordinal()];
+    }
+
+    public int getTotal(int record, NotificationType type) {
+        return counts[record][TYPES + type.ordinal()];
+    }
+
+    /**
+     * Draw the number of issues of a type as a SVG sparkline.
+     *
+     * @param type the type
+     * @param width the width in pixels
+     * @param height the height in pixels
+     * @return the SVG document
+     */
+    public String toSvg(NotificationType type, int width, int height) {
+        int max = 1;
+        for (int r = 0; r < size(); r++) {
+            max = Math.max(max, getTotal(r, type));
+        }
+        StringBuilder svg = new StringBuilder(256 + size() * 16);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(width)
+                .append("\" height=\"").append(height).append("\" viewBox=\"0 0 ").append(width).append(' ')
+                .append(height).append("\">");
+        if (size() > 0) {
+            int last = size() - 1;
+            svg.append("<title>").append(type.getTitle()).append(": ").append(getTotal(last, type))
+                    .append(" (#").append(getBuild(last)).append(")</title>");
+            float step = size() > 1 ? (width - 2f) / (size() - 1) : 0f;
+            svg.append("<polyline fill=\"none\" stroke=\"#4b758b\" stroke-width=\"1\" points=\"");
+            for (int r = 0; r < size(); r++) {
+                float x = 1f + r * step;
+                float y = height - 1f - (height - 2f) * getTotal(r, type) / max;
+                svg.append(String.format(Locale.ROOT, "%.1f,%.1f ", x, y));
+            }
+            svg.append("\"/>");
+            svg.append(String.format(Locale.ROOT, "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"1.5\" fill=\"#4b758b\"/>",
+                    1f + last * step, height - 1f - (height - 2f) * getTotal(last, type) / max));
+        }
+        return svg.append("</svg>").toString();
+    }
+}
@@ -26,27 +26,44 @@ package org.jenkinsci.plugins.reportinfo;
 import org.jenkinsci.plugins.reportinfo.model.NotificationBox;
 import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
 import hudson.Extension;
+import hudson.model.Descriptor.FormException;
+import hudson.model.Item;
 import hudson.model.Job;
 import hudson.model.ListView;
 import hudson.model.TopLevelItem;
 import hudson.model.ViewDescriptor;
+import hudson.model.listeners.ItemListener;
 import java.io.File;
+import java.io.IOException;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.reportinfo.model.JobNotification;
 import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.ReportIndex;
 
 /**
  * The new View.
@@ -55,17 +72,34 @@ import org.jenkinsci.plugins.reportinfo.model.NotificationType;
  */
 public class ReportInfo extends ListView {
 
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int TREND_WIDTH = 100;
+    private static final int TREND_HEIGHT = 20;
     private static JAXBContext CONTEXT;
     public static final Logger LOG = Logger.getLogger(ReportInfo.class.getName());
     /**
-     * Lock for read/write
+     * Locks for the writers, striped by the full name of the job. The files
+     * are replaced atomically so the readers need no lock.
      */
-    private static Map<String, ReadWriteLock> locks = new HashMap<>();
-    private static ReentrantLock masterLock = new ReentrantLock();
+    private static final Lock[] LOCKS = new Lock[64];
+    /**
+     * The views whose summary has been built, to patch them on write.
+     */
+    private static final Set<ReportInfo> VIEWS = Collections.newSetFromMap(new WeakHashMap<ReportInfo, Boolean>());
+
+    private transient volatile ViewSummary summary;
+    /**
+     * The index of the details, built on the first search.
+     */
+    private transient volatile SearchIndex index;
 
     static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new ReentrantLock();
+        }
         try {
-            CONTEXT = JAXBContext.newInstance(JobNotification.class);
+            CONTEXT = JAXBContext.newInstance(JobNotification.class, ReportIndex.class);
         } catch (JAXBException ex) {
             LOG.log(Level.SEVERE, null, ex);
         }
@@ -77,74 +111,534 @@ public class ReportInfo extends ListView {
         super(name);
     }
 
-    public static ReadWriteLock getLock(Job job) {
-        masterLock.lock();
-        try {
-            ReadWriteLock lock = locks.get(job.getName());
-            if (lock == null) {
-                lock = new ReentrantReadWriteLock();
-                locks.put(job.getName(), lock);
+    /**
+     * Get the lock to hold while writing the files of a job.
+     *
+     * @param job the job
+     * @return the lock
+     */
+    public static Lock getLock(Job job) {
+        return LOCKS[(job.getFullName().hashCode() & Integer.MAX_VALUE) % LOCKS.length];
+    }
+
+    /**
+     * Get the number of details of each type. The details are loaded by page
+     * with {@link #doDetails}.
+     *
+     * @return the non empty boxes
+     */
+    public List<NotificationBox> getNotifications() {
+        return getSummary().getBoxes();
+    }
+
+    /**
+     * Get the aggregate of the jobs of the view. It is built on the first
+     * request and then patched by {@link #write} and when the jobs of the view
+     * change.
+     *
+     * @return the current summary
+     */
+    public ViewSummary getSummary() {
+        ViewSummary current = summary;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (summary == null) {
+                register();
+                Map<String, int[]> jobs = new HashMap<>();
+                for (TopLevelItem item : getItems()) {
+                    if (item instanceof Job) {
+                        jobs.put(item.getFullName(), ViewSummary.countsOf(getNotification((Job) item)));
+                    }
+                }
+                summary = new ViewSummary(jobs);
             }
-            return lock;
-        } finally {
-            masterLock.unlock();
+            current = summary;
         }
+        return current;
     }
 
-    public List<NotificationBox> getNotifications() {
-        List<NotificationBox> notifications = new ArrayList<>();
+    /**
+     * Get the index of the details of the jobs of the view. It is built on the
+     * first search and then updated like the summary.
+     *
+     * @return the index
+     */
+    public SearchIndex getIndex() {
+        SearchIndex current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (index == null) {
+                register();
+                SearchIndex built = new SearchIndex();
+                for (TopLevelItem item : getItems()) {
+                    if (item instanceof Job) {
+                        built.put(item.getFullName(), getNotification((Job) item));
+                    }
+                }
+                index = built;
+            }
+            current = index;
+        }
+        return current;
+    }
+
+    /**
+     * Register the view to be patched on write, before reading the jobs: a
+     * write during the build waits for the lock of the view and patches the
+     * built summary or index.
+     */
+    private void register() {
+        synchronized (VIEWS) {
+            VIEWS.add(this);
+        }
+    }
+
+    private synchronized void update(Job job, int[] counts) {
+        if (summary != null && summary.contains(job.getFullName())) {
+            summary = summary.with(job.getFullName(), counts);
+        }
+        if (index != null && index.contains(job.getFullName())) {
+            index.put(job.getFullName(), getNotification(job));
+        }
+    }
+
+    private synchronized void addJob(Item item) {
+        if (item instanceof Job && item instanceof TopLevelItem && contains((TopLevelItem) item)) {
+            if (summary != null) {
+                summary = summary.with(item.getFullName(), ViewSummary.countsOf(getNotification((Job) item)));
+            }
+            if (index != null) {
+                index.put(item.getFullName(), getNotification((Job) item));
+            }
+        }
+    }
+
+    private synchronized void removeJob(String job) {
+        if (summary != null) {
+            summary = summary.without(job);
+        }
+        if (index != null) {
+            index.remove(job);
+        }
+    }
 
-        for (NotificationType type : NotificationType.values()) {
-            notifications.add(new NotificationBox(type));
+    private synchronized void reset(String job) {
+        if (summary != null && summary.contains(job)) {
+            summary = null;
         }
+        if (index != null && index.contains(job)) {
+            index = null;
+        }
+    }
+
+    private static List<ReportInfo> getViews() {
+        synchronized (VIEWS) {
+            return new ArrayList<>(VIEWS);
+        }
+    }
 
+    @Override
+    public void add(TopLevelItem item) throws IOException {
+        super.add(item);
+        addJob(item);
+    }
+
+    @Override
+    public boolean remove(TopLevelItem item) throws IOException {
+        boolean removed = super.remove(item);
+        if (removed) {
+            removeJob(item.getFullName());
+        }
+        return removed;
+    }
+
+    @Override
+    protected void submit(StaplerRequest req) throws ServletException, FormException, IOException {
+        super.submit(req);
+        // the filters may have changed, rebuild on the next request
+        synchronized (this) {
+            summary = null;
+            index = null;
+        }
+    }
+
+    /**
+     * Get a page of details as JSON.
+     *
+     * <p>
+     * The jobs are listed in the order of their full names. The cursor is
+     * <code>position:job</code>, the position of the next detail in the job
+     * with this full name, so that a job added to or removed from the view
+     * does not shift the pages. The response contains the details and the
+     * cursor of the next page, null at the end.</p>
+     *
+     * @param rsp the response
+     * @param type the type of the details
+     * @param job the full name of a job to filter, or null for all the jobs
+     * @param cursor the cursor returned by the previous page, or null for the
+     * first page
+     * @param size the maximum number of details
+     * @param newOnly return only the details not found in the previous build
+     * @throws IOException if the response cannot be written
+     */
+    public void doDetails(StaplerResponse rsp, @QueryParameter String type, @QueryParameter String job,
+            @QueryParameter String cursor, @QueryParameter int size, @QueryParameter boolean newOnly)
+            throws IOException {
+        checkPermission(READ);
+        NotificationType ntype;
+        try {
+            ntype = NotificationType.valueOf(type);
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            rsp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        int limit = size <= 0 ? PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+
+        final JSONArray details = new JSONArray();
+        final TreeMap<String, Job> jobs = new TreeMap<>();
         for (TopLevelItem item : getItems()) {
-            if (!(item instanceof Job)) {
-                continue;
+            if (item instanceof Job && (job == null || job.isEmpty() || job.equals(item.getFullName()))) {
+                jobs.put(item.getFullName(), (Job) item);
             }
-            Job job = (Job) item;
-            File cache = new File(job.getRootDir(), "reportinfo.xml");
-            if (!cache.exists()) {
+        }
+        String next;
+        try {
+            next = page(jobs.navigableKeySet(), new Source() {
+                @Override
+                public JobNotification get(String job) {
+                    return getNotification(jobs.get(job));
+                }
+            }, ntype, cursor, limit, newOnly, new SearchIndex.Collector() {
+                @Override
+                public void collect(JobNotification notification, NotificationDetail detail) {
+                    details.add(toJson(notification, detail));
+                }
+            });
+        } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+            rsp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        JSONObject page = new JSONObject();
+        page.put("details", details);
+        page.put("next", next == null ? JSONNull.getInstance() : next);
+        rsp.setContentType("application/json;charset=UTF-8");
+        page.write(rsp.getWriter());
+    }
+
+    /**
+     * Collect a page of the details of a type, for {@link #doDetails}.
+     *
+     * @param jobs the full names of the jobs, sorted
+     * @param source the notifications of the jobs
+     * @param type the type of the details
+     * @param cursor the cursor returned by the previous page, null or empty
+     * for the first page
+     * @param limit the maximum number of details
+     * @param newOnly collect only the details not found in the previous build
+     * @param collector the collector receiving the details
+     * @return the cursor of the next page, null at the end
+     * @throws NumberFormatException if the cursor is not valid
+     * @throws IndexOutOfBoundsException if the cursor has no job
+     */
+    static String page(NavigableSet<String> jobs, Source source, NotificationType type, String cursor, int limit,
+            boolean newOnly, SearchIndex.Collector collector) {
+        String fromJob = "";
+        int fromPosition = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            int sep = cursor.indexOf(':');
+            fromPosition = Integer.parseInt(cursor.substring(0, sep));
+            fromJob = cursor.substring(sep + 1);
+        }
+        int found = 0;
+        for (String job : jobs.tailSet(fromJob, true)) {
+            JobNotification notification = source.get(job);
+            if (notification == null || (newOnly && notification.getNewFingerprints() == null)) {
                 continue;
             }
-            JobNotification notification = null;
-            Lock lock = getLock(job).readLock();
-            lock.lock();
-            try {
-                notification = (JobNotification) CONTEXT.createUnmarshaller().unmarshal(cache);
-            } catch (JAXBException ex) {
-                LOG.log(Level.SEVERE, null, ex);
-            } finally {
-                lock.unlock();
-            }
-            if (notification != null) {
-                for (NotificationDetail detail : notification.getList()) {
-                    detail.setJob(job.getName());
-                    notifications.get(detail.getType().ordinal()).getDetails().add(detail);
+            List<NotificationDetail> list = notification.getList();
+            for (int j = job.equals(fromJob) ? fromPosition : 0; j < list.size(); j++) {
+                NotificationDetail detail = list.get(j);
+                if (detail.getType() != type || (newOnly && !notification.isNew(detail))) {
+                    continue;
+                }
+                if (found == limit) {
+                    return j + ":" + job;
                 }
+                collector.collect(notification, detail);
+                found++;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the notifications of the jobs of a page.
+     */
+    interface Source {
+
+        JobNotification get(String job);
+    }
+
+    /**
+     * Search the details of the jobs of the view, as JSON.
+     *
+     * <p>
+     * The details having all the tokens (letters and digits) of the query in
+     * their job name, rule, file or message are returned by page, in the order
+     * of the job names. The response is the same as {@link #doDetails}.</p>
+     *
+     * @param rsp the response
+     * @param q the text to search, empty for all the details
+     * @param type the type of the details, empty for all the types
+     * @param job the full name of a job to filter, or null for all the jobs
+     * @param cursor the cursor returned by the previous page, or null for the
+     * first page
+     * @param size the maximum number of details
+     * @throws IOException if the response cannot be written
+     */
+    public void doSearch(StaplerResponse rsp, @QueryParameter String q, @QueryParameter String type,
+            @QueryParameter String job, @QueryParameter String cursor, @QueryParameter int size) throws IOException {
+        checkPermission(READ);
+        NotificationType ntype = null;
+        if (type != null && !type.isEmpty()) {
+            try {
+                ntype = NotificationType.valueOf(type);
+            } catch (IllegalArgumentException ex) {
+                rsp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+                return;
             }
         }
+        int limit = size <= 0 ? PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
 
-        for (int i = notifications.size() - 1; i >= 0; i--) {
-            if (notifications.get(i).getDetails().isEmpty()) {
-                notifications.remove(i);
+        final JSONArray details = new JSONArray();
+        String next;
+        try {
+            next = getIndex().search(q, ntype, job, cursor, limit, new SearchIndex.Collector() {
+                @Override
+                public void collect(JobNotification notification, NotificationDetail detail) {
+                    details.add(toJson(notification, detail));
+                }
+            });
+        } catch (NumberFormatException ex) {
+            rsp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        JSONObject page = new JSONObject();
+        page.put("details", details);
+        page.put("next", next == null ? JSONNull.getInstance() : next);
+        rsp.setContentType("application/json;charset=UTF-8");
+        page.write(rsp.getWriter());
+    }
+
+    private static JSONObject toJson(JobNotification notification, NotificationDetail detail) {
+        JSONObject json = new JSONObject();
+        json.put("job", detail.getJob());
+        json.put("message", detail.getMessage());
+        json.put("severity", detail.getSeverity().name());
+        json.put("new", notification.isNew(detail));
+        if (detail.getRule() != null) {
+            json.put("rule", detail.getRule());
+        }
+        if (detail.getFile() != null) {
+            json.put("file", detail.getFile());
+        }
+        if (detail.getLine() > 0) {
+            json.put("line", detail.getLine());
+        }
+        return json;
+    }
+
+    /**
+     * Get the trend of a type of issues of a job as a SVG sparkline.
+     *
+     * @param rsp the response
+     * @param job the full name of a job of the view
+     * @param type the type of the issues
+     * @throws IOException if the response cannot be written
+     */
+    public void doTrend(StaplerResponse rsp, @QueryParameter String job, @QueryParameter String type)
+            throws IOException {
+        checkPermission(READ);
+        NotificationType ntype;
+        try {
+            ntype = NotificationType.valueOf(type);
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            rsp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        Job item = job == null || !getSummary().contains(job) ? null
+                : Jenkins.getInstance().getItemByFullName(job, Job.class);
+        ReportHistory history = item == null ? null : ReportHistory.read(item);
+        if (history == null) {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        rsp.setContentType("image/svg+xml;charset=UTF-8");
+        rsp.getWriter().write(history.toSvg(ntype, TREND_WIDTH, TREND_HEIGHT));
+    }
+
+    private static JobNotification getNotification(final Job job) {
+        return ReportCache.get().get(ReportStore.getFile(job), job.getFullName(), new ReportCache.Loader() {
+            @Override
+            public JobNotification load(File file) {
+                return read(file, job);
+            }
+        });
+    }
+
+    /**
+     * Read a reportinfo file, binary or legacy XML.
+     *
+     * @param file the file
+     * @param job the job
+     * @return the notifications or null if the file cannot be read
+     */
+    static JobNotification read(File file, Job job) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            if (ReportStore.LEGACY_FILENAME.equals(file.getName())) {
+                return (JobNotification) CONTEXT.createUnmarshaller().unmarshal(file);
             }
+            return ReportStore.read(file);
+        } catch (JAXBException | IOException ex) {
+            File current = ReportStore.getFile(job);
+            if (!current.equals(file)) {
+                // converted or rewritten while reading
+                return read(current, job);
+            }
+            LOG.log(Level.SEVERE, null, ex);
+            return null;
         }
-        return notifications;
     }
 
     public static void write(JobNotification notif, Job job) {
-        Lock lock = getLock(job).writeLock();
+        File file = new File(job.getRootDir(), ReportStore.FILENAME);
+        File legacy = new File(job.getRootDir(), ReportStore.LEGACY_FILENAME);
+        Lock lock = getLock(job);
+        lock.lock();
+        try {
+            ReportStore.write(notif, file);
+            if (legacy.exists() && !legacy.delete()) {
+                LOG.log(Level.WARNING, "cannot delete {0}", legacy);
+            }
+            // under the lock, so that the views see the writes in the order of the file
+            ReportCache.get().invalidate(file);
+            int[] counts = ViewSummary.countsOf(notif);
+            for (ReportInfo view : getViews()) {
+                view.update(job, counts);
+            }
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, null, ex);
+        } finally {
+            ReportCache.get().invalidate(file);
+            ReportCache.get().invalidate(legacy);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Convert the legacy XML file of a job to the binary format.
+     *
+     * @param job the job
+     * @return true if the file has been converted
+     */
+    static boolean migrate(Job job) {
+        File file = new File(job.getRootDir(), ReportStore.FILENAME);
+        File legacy = new File(job.getRootDir(), ReportStore.LEGACY_FILENAME);
+        Lock lock = getLock(job);
         lock.lock();
         try {
-            CONTEXT.createMarshaller().marshal(notif, new File(job.getRootDir(), "reportinfo.xml"));
+            if (file.exists() || !legacy.exists()) {
+                return false;
+            }
+            JobNotification notif = (JobNotification) CONTEXT.createUnmarshaller().unmarshal(legacy);
+            ReportStore.write(notif, file);
+            if (!legacy.delete()) {
+                LOG.log(Level.WARNING, "cannot delete {0}", legacy);
+            }
+            return true;
+        } catch (JAXBException | IOException ex) {
+            LOG.log(Level.WARNING, "cannot convert " + legacy, ex);
+            return false;
+        } finally {
+            ReportCache.get().invalidate(file);
+            ReportCache.get().invalidate(legacy);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read the report files found by the last scan of a job.
+     *
+     * @param job the job
+     * @return the report files or null if the job has not been scanned
+     */
+    public static ReportIndex readIndex(Job job) {
+        File file = new File(job.getRootDir(), "reportinfo-index.xml");
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return (ReportIndex) CONTEXT.createUnmarshaller().unmarshal(file);
         } catch (JAXBException ex) {
             LOG.log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+
+    public static void writeIndex(ReportIndex index, Job job) {
+        File file = new File(job.getRootDir(), "reportinfo-index.xml");
+        File tmp = ReportStore.getTempFile(file);
+        Lock lock = getLock(job);
+        lock.lock();
+        try {
+            CONTEXT.createMarshaller().marshal(index, tmp);
+            ReportStore.replace(tmp, file);
+        } catch (JAXBException | IOException ex) {
+            LOG.log(Level.SEVERE, null, ex);
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Patch the summaries of the views when a job is created, deleted, renamed
+     * or moved.
+     */
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onCreated(Item item) {
+            for (ReportInfo view : getViews()) {
+                view.addJob(item);
+            }
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            for (ReportInfo view : getViews()) {
+                view.removeJob(item.getFullName());
+            }
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            // the lists of jobs of the views may be updated after this call
+            for (ReportInfo view : getViews()) {
+                view.reset(oldFullName);
+            }
+        }
+    }
+
     @Extension
     public static final class DescriptorImpl extends ViewDescriptor {
 
@@ -0,0 +1,196 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import hudson.model.Action;
+import java.util.EnumMap;
+import java.util.Map;
+import org.jenkinsci.plugins.reportinfo.builder.ScanMetrics;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+
+/**
+ * The measures of the report info step of a build, displayed on the build
+ * page.
+ *
+ * @author Gael COLIN
+ */
+public class ReportInfoAction implements Action {
+
+    private final long resolveMillis;
+    private final long scanMillis;
+    private final long walkMillis;
+    /**
+     * The time spent in each parser by type ordinal.
+     */
+    private final long[] parseMillis;
+    private final long mergeMillis;
+    private final long writeMillis;
+    private final int directories;
+    private final int files;
+    private final int matched;
+    private final int reused;
+    private final long bytesParsed;
+    private final long issues;
+    private final int kept;
+    private final int newIssues;
+    private final int fixedIssues;
+    /**
+     * The budgets exceeded by the scan, null if the scan is complete.
+     */
+    private final String truncated;
+
+    /**
+     * Create the action.
+     *
+     * @param metrics the measures of the node
+     * @param resolveMillis the time to find the root directory of the reports
+     * @param scanMillis the time of the scan seen by the controller, including
+     * the transfer of the details
+     * @param mergeMillis the time to merge the details on the controller
+     * @param writeMillis the time to store the details
+     * @param kept the number of details stored
+     * @param newIssues the number of details not found in the previous build,
+     * -1 if there is no previous build
+     * @param fixedIssues the number of details of the previous build not found
+     * anymore, -1 if there is no previous build
+     */
+    public ReportInfoAction(ScanMetrics metrics, long resolveMillis, long scanMillis, long mergeMillis,
+            long writeMillis, int kept, int newIssues, int fixedIssues) {
+        this.resolveMillis = resolveMillis;
+        this.scanMillis = scanMillis;
+        this.walkMillis = metrics.getWalkMillis();
+        NotificationType[] types = NotificationType.values();
+        this.parseMillis = new long[types.length];
+        for (NotificationType type : types) {
+            parseMillis[type.ordinal()] = metrics.getParseMillis(type);
+        }
+        this.mergeMillis = mergeMillis;
+        this.writeMillis = writeMillis;
+        this.directories = metrics.getDirectories();
+        this.files = metrics.getFiles();
+        this.matched = metrics.getMatched();
+        this.reused = metrics.getReused();
+        this.bytesParsed = metrics.getBytesParsed();
+        this.issues = metrics.getIssues();
+        this.kept = kept;
+        this.newIssues = newIssues;
+        this.fixedIssues = fixedIssues;
+        this.truncated = metrics.getTruncated();
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.ReportInfoAction_displayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    public long getResolveMillis() {
+        return resolveMillis;
+    }
+
+    public long getScanMillis() {
+        return scanMillis;
+    }
+
+    public long getWalkMillis() {
+        return walkMillis;
+    }
+
+    /**
+     * @return the time spent in each parser, in milliseconds
+     */
+    public Map<NotificationType, Long> getParseMillis() {
+        Map<NotificationType, Long> map = new EnumMap<>(NotificationType.class);
+        for (NotificationType type : NotificationType.values()) {
+            if (type.ordinal() < parseMillis.length && parseMillis[type.ordinal()] > 0) {
+                map.put(type, parseMillis[type.ordinal()]);
+            }
+        }
+        return map;
+    }
+
+    public long getMergeMillis() {
+        return mergeMillis;
+    }
+
+    public long getWriteMillis() {
+        return writeMillis;
+    }
+
+    /**
+     * @return the time spent by the step on the controller
+     */
+    public long getTotalMillis() {
+        return resolveMillis + scanMillis + mergeMillis + writeMillis;
+    }
+
+    public int getDirectories() {
+        return directories;
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public int getMatched() {
+        return matched;
+    }
+
+    public int getReused() {
+        return reused;
+    }
+
+    public long getBytesParsed() {
+        return bytesParsed;
+    }
+
+    public long getIssues() {
+        return issues;
+    }
+
+    public int getKept() {
+        return kept;
+    }
+
+    public int getNewIssues() {
+        return newIssues;
+    }
+
+    public int getFixedIssues() {
+        return fixedIssues;
+    }
+
+    public String getTruncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Controller-wide counters of the report info steps and of the cache.
+ *
+ * @author Gael COLIN
+ */
+public final class ReportInfoMetrics implements ReportInfoMetricsMXBean {
+
+    private static final ReportInfoMetrics INSTANCE = new ReportInfoMetrics();
+    private static final String OBJECT_NAME = "org.jenkinsci.plugins.reportinfo:type=ReportInfoMetrics";
+
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong walkMillis = new AtomicLong();
+    private final AtomicLong parseMillis = new AtomicLong();
+    private final AtomicLong writeMillis = new AtomicLong();
+    private final AtomicLong directories = new AtomicLong();
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong bytesParsed = new AtomicLong();
+    private final AtomicLong issues = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> jobMillis = new ConcurrentHashMap<>();
+
+    private ReportInfoMetrics() {
+    }
+
+    public static ReportInfoMetrics get() {
+        return INSTANCE;
+    }
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            // left by a previous instance in the same JVM
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(INSTANCE, name);
+        } catch (JMException ex) {
+            ReportInfo.LOG.log(Level.SEVERE, null, ex);
+        }
+    }
+
+    @Terminator
+    public static void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException ex) {
+            ReportInfo.LOG.log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Add the measures of a build.
+     *
+     * @param job the full name of the job
+     * @param action the measures
+     */
+    public void record(String job, ReportInfoAction action) {
+        scans.incrementAndGet();
+        totalMillis.addAndGet(action.getTotalMillis());
+        walkMillis.addAndGet(action.getWalkMillis());
+        for (long millis : action.getParseMillis().values()) {
+            parseMillis.addAndGet(millis);
+        }
+        writeMillis.addAndGet(action.getWriteMillis());
+        directories.addAndGet(action.getDirectories());
+        files.addAndGet(action.getFiles());
+        matched.addAndGet(action.getMatched());
+        bytesParsed.addAndGet(action.getBytesParsed());
+        issues.addAndGet(action.getIssues());
+        AtomicLong millis = jobMillis.get(job);
+        if (millis == null) {
+            AtomicLong created = new AtomicLong();
+            millis = jobMillis.putIfAbsent(job, created);
+            if (millis == null) {
+                millis = created;
+            }
+        }
+        millis.addAndGet(action.getTotalMillis());
+    }
+
+    /**
+     * Forget the time of a job and of the jobs of a folder.
+     *
+     * @param job the full name of the job or folder
+     */
+    void remove(String job) {
+        String prefix = job + '/';
+        for (Iterator<String> it = jobMillis.keySet().iterator(); it.hasNext();) {
+            String name = it.next();
+            if (name.equals(job) || name.startsWith(prefix)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Move the time of a job, or of the jobs of a folder, to its new name.
+     *
+     * @param oldJob the previous full name of the job or folder
+     * @param newJob the new full name
+     */
+    void rename(String oldJob, String newJob) {
+        String prefix = oldJob + '/';
+        for (Map.Entry<String, AtomicLong> entry : jobMillis.entrySet()) {
+            String name = entry.getKey();
+            if ((name.equals(oldJob) || name.startsWith(prefix)) && jobMillis.remove(name, entry.getValue())) {
+                AtomicLong moved = jobMillis.putIfAbsent(newJob + name.substring(oldJob.length()), entry.getValue());
+                if (moved != null) {
+                    moved.addAndGet(entry.getValue().get());
+                }
+            }
+        }
+    }
+
+    @Override
+    public long getScanCount() {
+        return scans.get();
+    }
+
+    @Override
+    public long getTotalMillis() {
+        return totalMillis.get();
+    }
+
+    @Override
+    public long getWalkMillis() {
+        return walkMillis.get();
+    }
+
+    @Override
+    public long getParseMillis() {
+        return parseMillis.get();
+    }
+
+    @Override
+    public long getWriteMillis() {
+        return writeMillis.get();
+    }
+
+    @Override
+    public long getDirectoriesVisited() {
+        return directories.get();
+    }
+
+    @Override
+    public long getFilesVisited() {
+        return files.get();
+    }
+
+    @Override
+    public long getFilesMatched() {
+        return matched.get();
+    }
+
+    @Override
+    public long getBytesParsed() {
+        return bytesParsed.get();
+    }
+
+    @Override
+    public long getIssues() {
+        return issues.get();
+    }
+
+    @Override
+    public Map<String, Long> getJobMillis() {
+        Map<String, Long> map = new HashMap<>();
+        for (Map.Entry<String, AtomicLong> entry : jobMillis.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().get());
+        }
+        return map;
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return ReportCache.get().getHitCount();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return ReportCache.get().getMissCount();
+    }
+
+    @Override
+    public long getCacheEvictionCount() {
+        return ReportCache.get().getEvictionCount();
+    }
+
+    @Override
+    public int getCacheSize() {
+        return ReportCache.get().getSize();
+    }
+
+    @Override
+    public long getCacheWeight() {
+        return ReportCache.get().getWeight();
+    }
+
+    /**
+     * Forget the times of the deleted jobs, move the times of the renamed or
+     * moved ones.
+     */
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.remove(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            INSTANCE.rename(oldFullName, newFullName);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.util.Map;
+
+/**
+ * The report info measures published with JMX, under the name
+ * <code>org.jenkinsci.plugins.reportinfo:type=ReportInfoMetrics</code>.
+ *
+ * @author Gael COLIN
+ */
+public interface ReportInfoMetricsMXBean {
+
+    long getScanCount();
+
+    /**
+     * @return the time spent by the report info steps on the controller, in
+     * milliseconds
+     */
+    long getTotalMillis();
+
+    long getWalkMillis();
+
+    long getParseMillis();
+
+    long getWriteMillis();
+
+    long getDirectoriesVisited();
+
+    long getFilesVisited();
+
+    long getFilesMatched();
+
+    long getBytesParsed();
+
+    long getIssues();
+
+    /**
+     * @return the time spent by the report info steps of each job on the
+     * controller, in milliseconds
+     */
+    Map<String, Long> getJobMillis();
+
+    long getCacheHitCount();
+
+    long getCacheMissCount();
+
+    long getCacheEvictionCount();
+
+    int getCacheSize();
+
+    long getCacheWeight();
+}
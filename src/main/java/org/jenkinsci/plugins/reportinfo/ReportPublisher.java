@@ -24,20 +24,39 @@
 package org.jenkinsci.plugins.reportinfo;
 
 import hudson.Extension;
+import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.RemoteOutputStream;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.BuildStepMonitor;
 import hudson.tasks.Publisher;
 import hudson.tasks.Recorder;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.nio.file.Path;
-import org.jenkinsci.plugins.reportinfo.builder.AllNotificationBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import org.jenkinsci.plugins.reportinfo.builder.PathUtils;
+import org.jenkinsci.plugins.reportinfo.builder.ReportStream;
+import org.jenkinsci.plugins.reportinfo.builder.ScanCallable;
+import org.jenkinsci.plugins.reportinfo.builder.ScanMetrics;
+import org.jenkinsci.plugins.reportinfo.builder.ScanOptions;
+import org.jenkinsci.plugins.reportinfo.model.Fingerprints;
 import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.ReportFile;
+import org.jenkinsci.plugins.reportinfo.model.ReportIndex;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 /**
  * The post build action.
@@ -45,41 +64,503 @@ import org.kohsuke.stapler.DataBoundConstructor;
  * @author Gael COLIN
  */
 public class ReportPublisher extends Recorder {
+
+    /**
+     * The log of an asynchronous scan, in the build directory.
+     */
+    public static final String SCAN_LOG_FILENAME = "reportinfo-scan.log";
+    private static final int DEFAULT_THREADS = 1;
+    private static final int DEFAULT_QUEUE_SIZE = 100;
+    private static final int DEFAULT_FULL_SCAN_INTERVAL = 10;
+    private static final int DEFAULT_HISTORY_SIZE = 100;
+    /**
+     * The number of previous builds searched for fingerprints, each build
+     * searched may be loaded from the disk.
+     */
+    private static final int MAX_PREVIOUS_BUILDS = 3;
     
     private final String excludeFolders;
+    /**
+     * The number of threads parsing the reports, 1 parses them in the walker.
+     */
+    private Integer threads = DEFAULT_THREADS;
+    /**
+     * The number of reports waiting for a parser thread.
+     */
+    private Integer queueSize = DEFAULT_QUEUE_SIZE;
+    /**
+     * The maximum number of details kept for each type, 0 for no limit.
+     */
+    private int maxTests;
+    private int maxFindBugs;
+    private int maxPmd;
+    private int maxCheckstyle;
+    /**
+     * Keep the most severe details instead of the first ones.
+     */
+    private boolean capBySeverity;
+    /**
+     * The number of builds scanning only the directories where the reports
+     * were found before a scan of the whole workspace, 0 to always scan the
+     * whole workspace.
+     */
+    private Integer fullScanInterval = DEFAULT_FULL_SCAN_INTERVAL;
+    /**
+     * The number of builds kept in the history, 0 to keep no history.
+     */
+    private Integer historySize = DEFAULT_HISTORY_SIZE;
+    /**
+     * The budgets of the scan, 0 for no limit: the time of the walk in
+     * seconds, the number of files visited and the size of a report in
+     * megabytes. The details found before a budget is exceeded are kept.
+     */
+    private int maxScanSeconds;
+    private int maxScanFiles;
+    private int maxReportSize;
+    /**
+     * The Ant-style patterns of the reports, empty for the default ones.
+     */
+    private String testIncludes;
+    private String findBugsIncludes;
+    private String pmdIncludes;
+    private String checkstyleIncludes;
+    /**
+     * Detect the XML reports not matching the patterns from their root
+     * element.
+     */
+    private boolean detectReports;
+    /**
+     * Scan the workspace in the controller-wide {@link ScanQueue} after the
+     * build instead of during the build.
+     */
+    private boolean asynchronous;
     
     @DataBoundConstructor
     public ReportPublisher(String excludeFolders) {
         this.excludeFolders = excludeFolders;
     }
 
+    /**
+     * Apply the defaults of the settings missing from a configuration saved by
+     * a previous version, XStream does not run the field initializers.
+     *
+     * @return this publisher
+     */
+    protected Object readResolve() {
+        if (threads == null) {
+            threads = DEFAULT_THREADS;
+        }
+        if (queueSize == null) {
+            queueSize = DEFAULT_QUEUE_SIZE;
+        }
+        if (fullScanInterval == null) {
+            fullScanInterval = DEFAULT_FULL_SCAN_INTERVAL;
+        }
+        if (historySize == null) {
+            historySize = DEFAULT_HISTORY_SIZE;
+        }
+        return this;
+    }
+
     @Override
     public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
         listener.getLogger().println("Generate report info");
         
-        Path path = PathUtils.getPath(build, listener.getLogger());
+        long start = System.currentTimeMillis();
+        FilePath path = PathUtils.getPath(build, listener.getLogger());
+        long resolveMillis = System.currentTimeMillis() - start;
         if(path == null) {
             listener.getLogger().println("Cannot generate report info because the root path of the project is not found.");
             listener.getLogger().println("In order to detect is in further release of the report-info, please open an issue with your job configuration (config.xml) to the project https://github.com/gcolin/report-info");
+        } else if (asynchronous) {
+            int waiting = ScanQueue.get().submit(new Scan(build, path, resolveMillis));
+            listener.getLogger().println("Report info queued (" + waiting + " scan(s) waiting), see "
+                    + SCAN_LOG_FILENAME + " in the build folder");
         } else {
-            JobNotification jn = new JobNotification();
-            jn.setLastModified(System.currentTimeMillis());
-            new AllNotificationBuilder(jn, path, excludeFolders, listener.getLogger()).start();
-            ReportInfo.write(jn, build.getParent());
+            scan(build, path, resolveMillis, listener);
         }
         
         return true;
     }
 
+    /**
+     * Scan the workspace and store the report info of the build.
+     *
+     * @param build the build
+     * @param path the root directory of the reports
+     * @param resolveMillis the time spent to find the root directory
+     * @param listener receive the log of the scan
+     * @throws IOException if the workspace cannot be read
+     * @throws InterruptedException if interrupted
+     */
+    private void scan(AbstractBuild<?, ?> build, FilePath path, long resolveMillis, TaskListener listener)
+            throws IOException, InterruptedException {
+        ScanOptions options = new ScanOptions();
+        options.setExcludeFolders(excludeFolders);
+        options.setThreads(threads);
+        options.setQueueSize(queueSize);
+        int[] limits = getLimits();
+        options.setLimits(limits, capBySeverity);
+        options.setIncludes(NotificationType.TEST, testIncludes);
+        options.setIncludes(NotificationType.FINDBUG, findBugsIncludes);
+        options.setIncludes(NotificationType.PMD, pmdIncludes);
+        options.setIncludes(NotificationType.CHECKSTYLE, checkstyleIncludes);
+        options.setDetectReports(detectReports);
+        options.setMaxMillis(maxScanSeconds * 1000L);
+        options.setMaxFiles(maxScanFiles);
+        options.setMaxReportBytes(maxReportSize * 1024L * 1024L);
+
+        ReportIndex previous = ReportInfo.readIndex(build.getParent());
+        if (previous != null && !previous.getFiles().isEmpty()
+                && previous.getPartialScans() < fullScanInterval
+                && options.getIncludesSignature().equals(previous.getIncludes() == null ? "" : previous.getIncludes())) {
+            options.setLocations(new ArrayList<>(previous.getLocations()), previous.getPartialScans());
+        }
+        // the details kept by the previous scan depend on the limits
+        HashMap<String, ReportFile> fingerprints = previous == null || !options.getLimitsSignature().equals(
+                previous.getLimits() == null ? "" : previous.getLimits())
+                ? new HashMap<String, ReportFile>() : previous.getFingerprints();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        long start = System.currentTimeMillis();
+        ScanMetrics metrics = path.act(new ScanCallable(options, fingerprints, listener, new RemoteOutputStream(data)));
+        long scanMillis = System.currentTimeMillis() - start;
+        start = System.currentTimeMillis();
+        ReportIndex index = ReportStream.read(new ByteArrayInputStream(data.toByteArray()));
+
+        JobNotification jn = new JobNotification();
+        jn.setLastModified(System.currentTimeMillis());
+        if (limits != null) {
+            jn.setLimits(limits, capBySeverity);
+        }
+        Map<String, ReportFile> previousFiles = new HashMap<>();
+        if (!fingerprints.isEmpty()) {
+            for (ReportFile file : previous.getFiles()) {
+                previousFiles.put(file.getPath(), file);
+            }
+        }
+        int reused = 0;
+        for (ReportFile file : index.getFiles()) {
+            if (file.isReused()) {
+                ReportFile old = previousFiles.get(file.getPath());
+                file.setDetails(old.getDetails());
+                file.setTotals(old.getTotals());
+                file.setDropped(old.getDropped());
+                reused++;
+            }
+            // the node caps the parsed files, apply the caps with the reused ones
+            for (NotificationDetail detail : file.getDetails()) {
+                if (jn.accept(detail.getType(), detail.getSeverity())) {
+                    jn.getList().add(detail);
+                } else {
+                    jn.drop(Fingerprints.of(detail));
+                }
+            }
+            jn.drop(file.getDropped());
+            jn.addTotals(file.getTotals(), file.getDetails());
+        }
+        jn.trim();
+        if (metrics.getTruncated() != null) {
+            jn.setTruncated(metrics.getTruncated());
+            listener.getLogger().println("Partial report info: " + metrics.getTruncated());
+        }
+        if (metrics.getStopped() != null) {
+            // the reports after the stop are not located, scan the whole workspace next time
+            index.setPartialScans(Integer.MAX_VALUE);
+        }
+        if (!jn.getList().isEmpty() && jn.getList().size() < sum(jn.getTotals())) {
+            listener.getLogger().println(jn.getList().size() + " of " + sum(jn.getTotals())
+                    + " issue(s) kept because of the limits");
+        }
+        listener.getLogger().println(reused + " report file(s) reused, "
+                + (index.getFiles().size() - reused) + " parsed");
+        // all the parsed issues, so that an issue no longer kept by the limits is not fixed
+        long[] issueFingerprints = jn.getFingerprints();
+        long[] previousFingerprints = readPreviousFingerprints(build, listener);
+        int newIssues = -1;
+        int fixedIssues = -1;
+        if (previousFingerprints != null) {
+            jn.setNewFingerprints(Fingerprints.subtract(issueFingerprints, previousFingerprints));
+            newIssues = jn.getNewFingerprints().length;
+            fixedIssues = Fingerprints.subtract(previousFingerprints, issueFingerprints).length;
+            listener.getLogger().println(newIssues + " new issue(s), " + fixedIssues + " fixed");
+        }
+        long mergeMillis = System.currentTimeMillis() - start;
+        start = System.currentTimeMillis();
+        ReportInfo.write(jn, build.getParent());
+        ReportInfo.writeIndex(index, build.getParent());
+        ReportStore.writeFingerprints(issueFingerprints,
+                new File(build.getRootDir(), ReportStore.FINGERPRINTS_FILENAME));
+        if (historySize > 0) {
+            try {
+                ReportHistory.append(build.getParent(), build.getNumber(), build.getTimeInMillis(),
+                        jn.getCounts(), jn.getTotalCounts(), historySize);
+            } catch (IOException ex) {
+                ex.printStackTrace(listener.getLogger());
+            }
+        }
+        long writeMillis = System.currentTimeMillis() - start;
+
+        ReportInfoAction action = new ReportInfoAction(metrics, resolveMillis, scanMillis, mergeMillis,
+                writeMillis, jn.getList().size(), newIssues, fixedIssues);
+        build.addAction(action);
+        ReportInfoMetrics.get().record(build.getParent().getFullName(), action);
+        listener.getLogger().println("Report info generated in " + action.getTotalMillis() + " ms (scan "
+                + scanMillis + " ms, write " + writeMillis + " ms)");
+    }
+
+    /**
+     * @return the limits by type ordinal or null if there is no limit
+     */
+    private int[] getLimits() {
+        int[] limits = new int[NotificationType.values().length];
+        limits[NotificationType.TEST.ordinal()] = maxTests;
+        limits[NotificationType.FINDBUG.ordinal()] = maxFindBugs;
+        limits[NotificationType.PMD.ordinal()] = maxPmd;
+        limits[NotificationType.CHECKSTYLE.ordinal()] = maxCheckstyle;
+        for (int limit : limits) {
+            if (limit > 0) {
+                return limits;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the fingerprints of the last previous build having some, among
+     * the last {@value #MAX_PREVIOUS_BUILDS} builds.
+     *
+     * @return the sorted fingerprints or null if none of these builds has
+     * fingerprints
+     */
+    private static long[] readPreviousFingerprints(AbstractBuild<?, ?> build, TaskListener listener) {
+        Run<?, ?> run = build.getPreviousBuild();
+        for (int i = 0; run != null && i < MAX_PREVIOUS_BUILDS; i++, run = run.getPreviousBuild()) {
+            File file = new File(run.getRootDir(), ReportStore.FINGERPRINTS_FILENAME);
+            if (file.exists()) {
+                try {
+                    return ReportStore.readFingerprints(file);
+                } catch (IOException ex) {
+                    ex.printStackTrace(listener.getLogger());
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int sum(int[] values) {
+        int sum = 0;
+        if (values != null) {
+            for (int value : values) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
     public String getExcludeFolders() {
         return excludeFolders;
     }
 
+    public int getThreads() {
+        return threads;
+    }
+
+    @DataBoundSetter
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    @DataBoundSetter
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getMaxTests() {
+        return maxTests;
+    }
+
+    @DataBoundSetter
+    public void setMaxTests(int maxTests) {
+        this.maxTests = maxTests;
+    }
+
+    public int getMaxFindBugs() {
+        return maxFindBugs;
+    }
+
+    @DataBoundSetter
+    public void setMaxFindBugs(int maxFindBugs) {
+        this.maxFindBugs = maxFindBugs;
+    }
+
+    public int getMaxPmd() {
+        return maxPmd;
+    }
+
+    @DataBoundSetter
+    public void setMaxPmd(int maxPmd) {
+        this.maxPmd = maxPmd;
+    }
+
+    public int getMaxCheckstyle() {
+        return maxCheckstyle;
+    }
+
+    @DataBoundSetter
+    public void setMaxCheckstyle(int maxCheckstyle) {
+        this.maxCheckstyle = maxCheckstyle;
+    }
+
+    public boolean isCapBySeverity() {
+        return capBySeverity;
+    }
+
+    @DataBoundSetter
+    public void setCapBySeverity(boolean capBySeverity) {
+        this.capBySeverity = capBySeverity;
+    }
+
+    public int getFullScanInterval() {
+        return fullScanInterval;
+    }
+
+    @DataBoundSetter
+    public void setFullScanInterval(int fullScanInterval) {
+        this.fullScanInterval = fullScanInterval;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    @DataBoundSetter
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+    }
+
+    public int getMaxScanSeconds() {
+        return maxScanSeconds;
+    }
+
+    @DataBoundSetter
+    public void setMaxScanSeconds(int maxScanSeconds) {
+        this.maxScanSeconds = maxScanSeconds;
+    }
+
+    public int getMaxScanFiles() {
+        return maxScanFiles;
+    }
+
+    @DataBoundSetter
+    public void setMaxScanFiles(int maxScanFiles) {
+        this.maxScanFiles = maxScanFiles;
+    }
+
+    public int getMaxReportSize() {
+        return maxReportSize;
+    }
+
+    @DataBoundSetter
+    public void setMaxReportSize(int maxReportSize) {
+        this.maxReportSize = maxReportSize;
+    }
+
+    public String getTestIncludes() {
+        return testIncludes;
+    }
+
+    @DataBoundSetter
+    public void setTestIncludes(String testIncludes) {
+        this.testIncludes = testIncludes;
+    }
+
+    public String getFindBugsIncludes() {
+        return findBugsIncludes;
+    }
+
+    @DataBoundSetter
+    public void setFindBugsIncludes(String findBugsIncludes) {
+        this.findBugsIncludes = findBugsIncludes;
+    }
+
+    public String getPmdIncludes() {
+        return pmdIncludes;
+    }
+
+    @DataBoundSetter
+    public void setPmdIncludes(String pmdIncludes) {
+        this.pmdIncludes = pmdIncludes;
+    }
+
+    public String getCheckstyleIncludes() {
+        return checkstyleIncludes;
+    }
+
+    @DataBoundSetter
+    public void setCheckstyleIncludes(String checkstyleIncludes) {
+        this.checkstyleIncludes = checkstyleIncludes;
+    }
+
+    public boolean isDetectReports() {
+        return detectReports;
+    }
+
+    @DataBoundSetter
+    public void setDetectReports(boolean detectReports) {
+        this.detectReports = detectReports;
+    }
+
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+
+    @DataBoundSetter
+    public void setAsynchronous(boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
+
     @Override
     public BuildStepMonitor getRequiredMonitorService() {
         return BuildStepMonitor.NONE;
     }
     
+    /**
+     * A scan queued by an asynchronous build, logged in the build directory.
+     */
+    private final class Scan extends ScanQueue.Task {
+
+        private final AbstractBuild<?, ?> build;
+        private final FilePath path;
+        private final long resolveMillis;
+
+        Scan(AbstractBuild<?, ?> build, FilePath path, long resolveMillis) {
+            super(build);
+            this.build = build;
+            this.path = path;
+            this.resolveMillis = resolveMillis;
+        }
+
+        @Override
+        protected void run() throws IOException, InterruptedException {
+            try (StreamTaskListener listener = new StreamTaskListener(new File(build.getRootDir(), SCAN_LOG_FILENAME))) {
+                listener.getLogger().println("Waited " + getWaitMillis() + " ms in the report info queue");
+                try {
+                    scan(build, path, resolveMillis, listener);
+                } catch (IOException ex) {
+                    ex.printStackTrace(listener.getLogger());
+                    throw ex;
+                }
+            }
+            // the build is complete, save the action added by the scan
+            build.save();
+        }
+    }
+
     @Extension
     public static final class DescriptorImpl extends BuildStepDescriptor<Publisher> {
 
@@ -0,0 +1,428 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Job;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
+
+/**
+ * Binary storage of the notifications of a job.
+ *
+ * <p>
+ * Format (version 1), the integers are unsigned varints unless stated
+ * otherwise, a string is an index in the string table + 1, 0 for null:</p>
+ * <pre>
+ * "RINF" version:byte lastModified:long
+ * typeCount count*                    (number of details of each type)
+ * total*                              (number of issues of each type)
+ * stringCount (length utf8)*          (string table)
+ * (type:byte severity:byte rule file line column rawMessage message)*
+ * newCount (fingerprint:long)*        (new details, newCount is 0 if there
+ *                                      is no previous build, 1 + count else)
+ * truncated                           (length + 1 then utf8, 0 if complete)
+ * </pre>
+ *
+ * @author Gael COLIN
+ */
+public final class ReportStore {
+
+    public static final String FILENAME = "reportinfo.dat";
+    public static final String LEGACY_FILENAME = "reportinfo.xml";
+    /**
+     * The fingerprints of the details of a build, in the build directory.
+     */
+    public static final String FINGERPRINTS_FILENAME = "reportinfo-fingerprints.dat";
+    private static final byte[] MAGIC = {'R', 'I', 'N', 'F'};
+    private static final int VERSION = 1;
+    private static final byte[] FINGERPRINTS_MAGIC = {'R', 'F', 'P', 'R'};
+
+    private ReportStore() {
+    }
+
+    /**
+     * Get the file holding the notifications of a job: the binary file, or the
+     * legacy XML file if the job has not been migrated yet.
+     *
+     * @param job the job
+     * @return the file, it may not exist
+     */
+    public static File getFile(Job job) {
+        File file = new File(job.getRootDir(), FILENAME);
+        if (!file.exists()) {
+            File legacy = new File(job.getRootDir(), LEGACY_FILENAME);
+            if (legacy.exists()) {
+                return legacy;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Read the notifications from the binary format.
+     *
+     * @param file the file
+     * @return the notifications
+     * @throws IOException if the file cannot be read or is not valid
+     */
+    public static JobNotification read(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024)) {
+            return read(in);
+        }
+    }
+
+    static JobNotification read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        data.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("not a report info file");
+            }
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("unsupported report info version " + version);
+        }
+        JobNotification jn = new JobNotification();
+        jn.setLastModified(data.readLong());
+
+        int typeCount = readCount(data);
+        int total = 0;
+        for (int i = 0; i < typeCount; i++) {
+            total += readCount(data);
+            if (total < 0) {
+                throw new IOException("invalid report info count " + total);
+            }
+        }
+        int[] totals = new int[NotificationType.values().length];
+        for (int i = 0; i < typeCount; i++) {
+            int value = readVarint(data);
+            if (i < totals.length) {
+                totals[i] = value;
+            }
+        }
+        jn.setTotals(totals);
+
+        String[] strings = new String[readCount(data)];
+        byte[] buffer = new byte[256];
+        for (int i = 0; i < strings.length; i++) {
+            int length = readCount(data);
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            data.readFully(buffer, 0, length);
+            strings[i] = new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+
+        NotificationType[] types = NotificationType.values();
+        Severity[] severities = Severity.values();
+        List<NotificationDetail> list = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            NotificationType type = readOrdinal(data, types);
+            Severity severity = readOrdinal(data, severities);
+            String rule = readString(data, strings);
+            String file = readString(data, strings);
+            int line = readVarint(data);
+            int column = readVarint(data);
+            String rawMessage = readString(data, strings);
+            String message = readString(data, strings);
+            list.add(message == null
+                    ? new NotificationDetail(type, severity, rule, file, line, column, rawMessage)
+                    : new NotificationDetail(type, message));
+        }
+        jn.getList().addAll(list);
+        int newCount = readCount(data);
+        if (newCount > 0) {
+            long[] fingerprints = new long[newCount - 1];
+            for (int i = 0; i < fingerprints.length; i++) {
+                fingerprints[i] = data.readLong();
+            }
+            jn.setNewFingerprints(fingerprints);
+        }
+        int length = readCount(data);
+        if (length > 0) {
+            byte[] bytes = new byte[length - 1];
+            data.readFully(bytes);
+            jn.setTruncated(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return jn;
+    }
+
+    /**
+     * Write the notifications in the binary format. The notifications are
+     * written in a temporary file that replaces the file atomically, so the
+     * readers never see a partial file.
+     *
+     * @param jn the notifications
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(JobNotification jn, File file) throws IOException {
+        File tmp = getTempFile(file);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024)) {
+            write(jn, out);
+        }
+        replace(tmp, file);
+    }
+
+    /**
+     * Get the temporary file used to write a file. The caller must hold the
+     * lock of the job.
+     *
+     * @param file the file
+     * @return the temporary file in the same directory
+     */
+    public static File getTempFile(File file) {
+        return new File(file.getParentFile(), file.getName() + ".tmp");
+    }
+
+    /**
+     * Replace a file by a temporary file, atomically if supported by the file
+     * system.
+     *
+     * @param tmp the temporary file
+     * @param file the file
+     * @throws IOException if the file cannot be moved
+     */
+    public static void replace(File tmp, File file) throws IOException {
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static void write(JobNotification jn, OutputStream out) throws IOException {
+        NotificationType[] types = NotificationType.values();
+        int[] counts = new int[types.length];
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (NotificationDetail detail : jn.getList()) {
+            counts[detail.getType().ordinal()]++;
+            addString(strings, detail.getRule());
+            addString(strings, detail.getFile());
+            addString(strings, detail.getRawMessage());
+            addString(strings, detail.getLegacyMessage());
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(jn.getLastModified());
+        writeVarint(data, counts.length);
+        for (int count : counts) {
+            writeVarint(data, count);
+        }
+        int[] totals = jn.getTotals();
+        for (int i = 0; i < counts.length; i++) {
+            writeVarint(data, totals == null || i >= totals.length ? counts[i] : Math.max(counts[i], totals[i]));
+        }
+        writeVarint(data, strings.size());
+        for (String value : strings.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(data, bytes.length);
+            data.write(bytes);
+        }
+        for (NotificationDetail detail : jn.getList()) {
+            data.writeByte(detail.getType().ordinal());
+            data.writeByte(detail.getSeverity().ordinal());
+            writeString(data, strings, detail.getRule());
+            writeString(data, strings, detail.getFile());
+            writeVarint(data, Math.max(0, detail.getLine()));
+            writeVarint(data, Math.max(0, detail.getColumn()));
+            writeString(data, strings, detail.getRawMessage());
+            writeString(data, strings, detail.getLegacyMessage());
+        }
+        long[] fingerprints = jn.getNewFingerprints();
+        writeVarint(data, fingerprints == null ? 0 : fingerprints.length + 1);
+        if (fingerprints != null) {
+            for (long fingerprint : fingerprints) {
+                data.writeLong(fingerprint);
+            }
+        }
+        if (jn.getTruncated() == null) {
+            writeVarint(data, 0);
+        } else {
+            byte[] bytes = jn.getTruncated().getBytes(StandardCharsets.UTF_8);
+            writeVarint(data, bytes.length + 1);
+            data.write(bytes);
+        }
+        data.flush();
+    }
+
+    /**
+     * Read the fingerprints of the details of a build.
+     *
+     * @param file the file
+     * @return the sorted fingerprints
+     * @throws IOException if the file cannot be read or is not valid
+     */
+    public static long[] readFingerprints(File file) throws IOException {
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] magic = new byte[FINGERPRINTS_MAGIC.length];
+            data.readFully(magic);
+            if (!Arrays.equals(magic, FINGERPRINTS_MAGIC)) {
+                throw new IOException("not a fingerprints file");
+            }
+            int count = data.readInt();
+            if (count < 0) {
+                throw new IOException("invalid fingerprints count " + count);
+            }
+            long[] fingerprints = new long[count];
+            for (int i = 0; i < fingerprints.length; i++) {
+                fingerprints[i] = data.readLong();
+            }
+            return fingerprints;
+        }
+    }
+
+    /**
+     * Write the fingerprints of the details of a build.
+     *
+     * @param fingerprints the sorted fingerprints
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeFingerprints(long[] fingerprints, File file) throws IOException {
+        File tmp = getTempFile(file);
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            data.write(FINGERPRINTS_MAGIC);
+            data.writeInt(fingerprints.length);
+            for (long fingerprint : fingerprints) {
+                data.writeLong(fingerprint);
+            }
+        }
+        replace(tmp, file);
+    }
+
+    private static void addString(Map<String, Integer> strings, String value) {
+        if (value != null && !strings.containsKey(value)) {
+            strings.put(value, strings.size() + 1);
+        }
+    }
+
+    private static void writeString(DataOutputStream data, Map<String, Integer> strings, String value) throws IOException {
+        writeVarint(data, value == null ? 0 : strings.get(value));
+    }
+
+    private static String readString(DataInputStream data, String[] strings) throws IOException {
+        int index = readVarint(data);
+        if (index < 0 || index > strings.length) {
+            throw new IOException("invalid report info string " + index);
+        }
+        return index == 0 ? null : strings[index - 1];
+    }
+
+    /**
+     * Read the ordinal of an enum constant, written by a version that may
+     * have more constants or by a corrupted file.
+     */
+    private static <T extends Enum<T>> T readOrdinal(DataInputStream data, T[] values) throws IOException {
+        int ordinal = data.readUnsignedByte();
+        if (ordinal >= values.length) {
+            throw new IOException("invalid report info " + values[0].getDeclaringClass().getSimpleName()
+                    + " " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static int readCount(DataInputStream data) throws IOException {
+        int count = readVarint(data);
+        if (count < 0) {
+            throw new IOException("invalid report info count " + count);
+        }
+        return count;
+    }
+
+    static void writeVarint(DataOutputStream data, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            data.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    static int readVarint(DataInputStream data) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = data.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("malformed varint");
+    }
+
+    /**
+     * Convert the legacy XML files to the binary format, in background.
+     */
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void migrate() {
+        Timer.get().submit(new Runnable() {
+            @Override
+            public void run() {
+                int migrated = 0;
+                for (Job job : Jenkins.getActiveInstance().getAllItems(Job.class)) {
+                    if (new File(job.getRootDir(), LEGACY_FILENAME).exists()
+                            && !new File(job.getRootDir(), FILENAME).exists()) {
+                        if (ReportInfo.migrate(job)) {
+                            migrated++;
+                        }
+                    }
+                }
+                if (migrated > 0) {
+                    ReportInfo.LOG.log(Level.INFO, "{0} report info file(s) converted to the binary format", migrated);
+                }
+            }
+        });
+    }
+}
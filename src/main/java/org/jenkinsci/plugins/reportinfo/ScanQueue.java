@@ -0,0 +1,267 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import hudson.model.Run;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Controller-wide queue of the asynchronous scans.
+ *
+ * <p>
+ * The scans run in the order they were queued, at most
+ * <code>org.jenkinsci.plugins.reportinfo.ScanQueue.maxConcurrent</code>
+ * (system property, 2 by default) at a time and never two for the same job. A
+ * scan queued for a job already waiting supersedes the waiting one and takes
+ * its place in the queue. The queue is kept in memory only: the scans waiting
+ * when Jenkins stops are lost.</p>
+ *
+ * @author Gael COLIN
+ */
+public final class ScanQueue {
+
+    private static final ScanQueue INSTANCE = new ScanQueue(
+            Integer.getInteger(ScanQueue.class.getName() + ".maxConcurrent", 2));
+
+    private final int maxConcurrent;
+    private final ThreadPoolExecutor executor;
+    /**
+     * The waiting scans keyed by the full name of the job, in the order of the
+     * queue.
+     */
+    private final LinkedHashMap<String, Task> waiting = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Task> running = new LinkedHashMap<>();
+    private long started;
+    private long completed;
+    private long failed;
+    private long superseded;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+
+    ScanQueue(int maxConcurrent) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        executor = new ThreadPoolExecutor(this.maxConcurrent, this.maxConcurrent, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ScanThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static ScanQueue get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queue a scan.
+     *
+     * @param task the scan
+     * @return the number of scans waiting, including this one if it does not
+     * run yet
+     */
+    public synchronized int submit(Task task) {
+        Task old = waiting.put(task.getJob(), task);
+        if (old != null) {
+            superseded++;
+            ReportInfo.LOG.log(Level.FINE, "report info scan of {0} superseded by {1}",
+                    new Object[]{old.getBuild(), task.getBuild()});
+        }
+        dispatch();
+        return waiting.size();
+    }
+
+    /**
+     * Start the first waiting scans whose job is not being scanned, as long as
+     * the limit allows.
+     */
+    private synchronized void dispatch() {
+        Iterator<Task> it = waiting.values().iterator();
+        while (running.size() < maxConcurrent && it.hasNext()) {
+            final Task task = it.next();
+            if (running.containsKey(task.getJob())) {
+                // keep its place until the scan of the previous build ends
+                continue;
+            }
+            it.remove();
+            running.put(task.getJob(), task);
+            task.started = System.currentTimeMillis();
+            long wait = task.started - task.queued;
+            started++;
+            totalWaitMillis += wait;
+            maxWaitMillis = Math.max(maxWaitMillis, wait);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    execute(task);
+                }
+            });
+        }
+    }
+
+    private void execute(Task task) {
+        boolean success = false;
+        try {
+            task.run();
+            success = true;
+        } catch (IOException | RuntimeException ex) {
+            ReportInfo.LOG.log(Level.SEVERE, null, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            ReportInfo.LOG.log(Level.SEVERE, null, ex);
+        } finally {
+            synchronized (this) {
+                running.remove(task.getJob());
+                if (success) {
+                    completed++;
+                } else {
+                    failed++;
+                }
+                dispatch();
+            }
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return the waiting scans, in the order of the queue
+     */
+    public synchronized List<Task> getWaiting() {
+        return new ArrayList<>(waiting.values());
+    }
+
+    public synchronized List<Task> getRunning() {
+        return new ArrayList<>(running.values());
+    }
+
+    public synchronized long getCompleted() {
+        return completed;
+    }
+
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return the number of scans replaced by a newer scan of the same job
+     * before running
+     */
+    public synchronized long getSuperseded() {
+        return superseded;
+    }
+
+    /**
+     * @return the average time waited by the scans started, in milliseconds
+     */
+    public synchronized long getAverageWaitMillis() {
+        return started == 0 ? 0 : totalWaitMillis / started;
+    }
+
+    public synchronized long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * A scan of a build.
+     */
+    public abstract static class Task {
+
+        private final String job;
+        private final String build;
+        private final long queued = System.currentTimeMillis();
+        private volatile long started;
+
+        protected Task(Run<?, ?> run) {
+            this(run.getParent().getFullName(), run.getFullDisplayName());
+        }
+
+        /**
+         * @param job the full name of the job
+         * @param build the display name of the build
+         */
+        Task(String job, String build) {
+            this.job = job;
+            this.build = build;
+        }
+
+        /**
+         * @return the full name of the job
+         */
+        public String getJob() {
+            return job;
+        }
+
+        /**
+         * @return the display name of the build
+         */
+        public String getBuild() {
+            return build;
+        }
+
+        /**
+         * @return the time waited in the queue, in milliseconds
+         */
+        public long getWaitMillis() {
+            long start = started;
+            return (start == 0 ? System.currentTimeMillis() : start) - queued;
+        }
+
+        /**
+         * @return the time since the scan started, 0 if it is waiting
+         */
+        public long getRunMillis() {
+            long start = started;
+            return start == 0 ? 0 : System.currentTimeMillis() - start;
+        }
+
+        /**
+         * Scan the build, in a thread of the queue.
+         *
+         * @throws IOException if the scan fails
+         * @throws InterruptedException if interrupted
+         */
+        protected abstract void run() throws IOException, InterruptedException;
+    }
+
+    private static class ScanThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "report-info-scan-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+
+/**
+ * In-memory inverted index of the details of the jobs of a view.
+ *
+ * <p>
+ * The index has a segment by job, mapping the lower case tokens of the job
+ * name, rule, file path and message to the sorted positions of the details in
+ * the list of the job. A segment is replaced when its job is written, so a
+ * query never sees a segment partially updated.</p>
+ *
+ * @author Gael COLIN
+ */
+public final class SearchIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final ConcurrentSkipListMap<String, Segment> segments = new ConcurrentSkipListMap<>();
+
+    /**
+     * Index the details of a job, replacing the previous ones.
+     *
+     * @param job the full name of the job
+     * @param notification the details, null if the job has no details
+     */
+    public void put(String job, JobNotification notification) {
+        segments.put(job, new Segment(job, notification == null ? new JobNotification() : notification));
+    }
+
+    public void remove(String job) {
+        segments.remove(job);
+    }
+
+    public boolean contains(String job) {
+        return segments.containsKey(job);
+    }
+
+    /**
+     * Split a text in lower case tokens of letters and digits.
+     *
+     * @param text the text, may be null
+     * @return the tokens
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ENGLISH));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Find the details matching all the tokens of a query.
+     *
+     * <p>
+     * The details are returned by job, in the order of the job names. The
+     * cursor is <code>position:job</code>, the next detail to return.</p>
+     *
+     * @param query the text to search, empty to match all the details
+     * @param type the type of the details, null for all the types
+     * @param job the full name of a job, null for all the jobs
+     * @param cursor the cursor returned by the previous call, null for the
+     * first page
+     * @param limit the maximum number of details
+     * @param collector the collector receiving the details
+     * @return the cursor of the next page, null at the end
+     * @throws NumberFormatException if the cursor is not valid
+     */
+    public String search(String query, NotificationType type, String job, String cursor, int limit,
+            Collector collector) {
+        List<String> tokens = tokenize(query);
+        String fromJob = "";
+        int fromPosition = 0;
+        if (cursor != null && cursor.indexOf(':') > 0) {
+            fromPosition = Integer.parseInt(cursor.substring(0, cursor.indexOf(':')));
+            fromJob = cursor.substring(cursor.indexOf(':') + 1);
+        }
+        int found = 0;
+        ConcurrentNavigableMap<String, Segment> range = segments.tailMap(fromJob, true);
+        if (job != null && !job.isEmpty()) {
+            range = segments.subMap(job, true, job, true);
+        }
+        for (Segment segment : range.values()) {
+            int from = segment.job.equals(fromJob) ? fromPosition : 0;
+            List<NotificationDetail> list = segment.notification.getList();
+            int[] matches = segment.match(tokens);
+            int start = matches == null ? from : lowerBound(matches, from);
+            int end = matches == null ? list.size() : matches.length;
+            for (int k = start; k < end; k++) {
+                int position = matches == null ? k : matches[k];
+                NotificationDetail detail = list.get(position);
+                if (type != null && detail.getType() != type) {
+                    continue;
+                }
+                if (found == limit) {
+                    return position + ":" + segment.job;
+                }
+                collector.collect(segment.notification, detail);
+                found++;
+            }
+        }
+        return null;
+    }
+
+    private static int lowerBound(int[] values, int value) {
+        int index = Arrays.binarySearch(values, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Receive the details found.
+     */
+    public interface Collector {
+
+        void collect(JobNotification notification, NotificationDetail detail);
+    }
+
+    private static final class Segment {
+
+        private final String job;
+        private final JobNotification notification;
+        private final Map<String, int[]> postings;
+
+        Segment(String job, JobNotification notification) {
+            this.job = job;
+            this.notification = notification;
+            List<NotificationDetail> list = notification.getList();
+            Map<String, Postings> map = new HashMap<>();
+            List<String> jobTokens = tokenize(job);
+            for (int i = 0; i < list.size(); i++) {
+                NotificationDetail detail = list.get(i);
+                List<String> tokens = new ArrayList<>(jobTokens);
+                tokens.addAll(tokenize(detail.getRule()));
+                tokens.addAll(tokenize(detail.getFile()));
+                tokens.addAll(tokenize(detail.getLegacyMessage() == null ? detail.getRawMessage()
+                        : detail.getLegacyMessage()));
+                for (String token : tokens) {
+                    Postings positions = map.get(token);
+                    if (positions == null) {
+                        positions = new Postings();
+                        map.put(token, positions);
+                    }
+                    positions.add(i);
+                }
+            }
+            this.postings = new HashMap<>(map.size() * 4 / 3 + 1);
+            for (Map.Entry<String, Postings> entry : map.entrySet()) {
+                postings.put(entry.getKey(), entry.getValue().toArray());
+            }
+        }
+
+        /**
+         * @return the sorted positions of the details having all the tokens,
+         * null if there is no token
+         */
+        int[] match(List<String> tokens) {
+            int[] result = null;
+            for (String token : tokens) {
+                int[] positions = postings.get(token);
+                if (positions == null) {
+                    return EMPTY;
+                }
+                result = result == null ? positions : intersect(result, positions);
+            }
+            return result;
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] result = new int[Math.min(a.length, b.length)];
+            int n = 0;
+            for (int i = 0, j = 0; i < a.length && j < b.length;) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, n);
+        }
+    }
+
+    /**
+     * The growing sorted positions of a token.
+     */
+    private static final class Postings {
+
+        private int[] positions = new int[4];
+        private int size;
+
+        void add(int position) {
+            if (size > 0 && positions[size - 1] == position) {
+                // token repeated in the same detail
+                return;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
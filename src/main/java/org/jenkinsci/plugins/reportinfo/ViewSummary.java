@@ -0,0 +1,196 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationBox;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+
+/**
+ * Immutable aggregate of the notifications of the jobs of a view.
+ *
+ * <p>
+ * A new summary is derived from the previous one when a job is written, added
+ * to or removed from the view, so that rendering the view neither iterates the
+ * jobs nor reads their files.</p>
+ *
+ * @author Gael COLIN
+ */
+public final class ViewSummary {
+
+    private static final int TYPES = NotificationType.values().length;
+    /**
+     * The index of the truncated flag in the counts of a job.
+     */
+    private static final int TRUNCATED = TYPES * 2;
+
+    /**
+     * The counts then the totals of each job, by type ordinal, then 1 if the
+     * details of the job are truncated, keyed by the full name of the job.
+     */
+    private final Map<String, int[]> jobs;
+    private final int[] sums;
+    private final List<NotificationBox> boxes;
+    private final List<String> names;
+    private final List<String> truncated;
+
+    ViewSummary(Map<String, int[]> jobs) {
+        this(jobs, sum(jobs));
+    }
+
+    private ViewSummary(Map<String, int[]> jobs, int[] sums) {
+        this.jobs = jobs;
+        this.sums = sums;
+        List<NotificationBox> list = new ArrayList<>();
+        for (NotificationType type : NotificationType.values()) {
+            int i = type.ordinal();
+            if (sums[TYPES + i] > 0) {
+                NotificationBox box = new NotificationBox(type);
+                box.add(sums[i], sums[TYPES + i]);
+                list.add(box);
+            }
+        }
+        this.boxes = Collections.unmodifiableList(list);
+        List<String> withIssues = new ArrayList<>();
+        List<String> partial = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : jobs.entrySet()) {
+            if (sums[TRUNCATED] > 0 && entry.getValue()[TRUNCATED] > 0) {
+                partial.add(entry.getKey());
+            }
+            for (int i = TYPES; i < TYPES * 2; i++) {
+                if (entry.getValue()[i] > 0) {
+                    withIssues.add(entry.getKey());
+                    break;
+                }
+            }
+        }
+        Collections.sort(withIssues);
+        this.names = Collections.unmodifiableList(withIssues);
+        Collections.sort(partial);
+        this.truncated = Collections.unmodifiableList(partial);
+    }
+
+    /**
+     * Get the counts of a job.
+     *
+     * @param notification the notifications of the job, may be null
+     * @return the counts then the totals by type ordinal, then the truncated
+     * flag
+     */
+    static int[] countsOf(JobNotification notification) {
+        int[] counts = new int[TYPES * 2 + 1];
+        if (notification != null) {
+            int[] details = notification.getCounts();
+            int[] totals = notification.getTotalCounts();
+            for (int i = 0; i < TYPES; i++) {
+                counts[i] = details[i];
+                counts[TYPES + i] = Math.max(details[i], totals[i]);
+            }
+            counts[TRUNCATED] = notification.getTruncated() == null ? 0 : 1;
+        }
+        return counts;
+    }
+
+    private static int[] sum(Map<String, int[]> jobs) {
+        int[] sums = new int[TYPES * 2 + 1];
+        for (int[] counts : jobs.values()) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += counts[i];
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Get the non empty boxes.
+     *
+     * @return the boxes, not modifiable
+     */
+    public List<NotificationBox> getBoxes() {
+        return boxes;
+    }
+
+    /**
+     * Get the jobs having issues.
+     *
+     * @return the full names of the jobs, sorted
+     */
+    public List<String> getJobs() {
+        return names;
+    }
+
+    /**
+     * Get the jobs whose last scan exceeded a budget.
+     *
+     * @return the full names of the jobs, sorted
+     */
+    public List<String> getTruncatedJobs() {
+        return truncated;
+    }
+
+    public boolean contains(String job) {
+        return jobs.containsKey(job);
+    }
+
+    /**
+     * Derive the summary with the counts of a job added or replaced.
+     *
+     * @param job the full name of the job
+     * @param counts the counts from {@link #countsOf}
+     * @return the new summary
+     */
+    ViewSummary with(String job, int[] counts) {
+        Map<String, int[]> copy = new HashMap<>(jobs);
+        int[] old = copy.put(job, counts);
+        int[] copySums = sums.clone();
+        for (int i = 0; i < copySums.length; i++) {
+            copySums[i] += counts[i] - (old == null ? 0 : old[i]);
+        }
+        return new ViewSummary(copy, copySums);
+    }
+
+    /**
+     * Derive the summary without a job.
+     *
+     * @param job the full name of the job
+     * @return the new summary, or this one if the job is not in the summary
+     */
+    ViewSummary without(String job) {
+        if (!jobs.containsKey(job)) {
+            return this;
+        }
+        Map<String, int[]> copy = new HashMap<>(jobs);
+        int[] old = copy.remove(job);
+        int[] copySums = sums.clone();
+        for (int i = 0; i < copySums.length; i++) {
+            copySums[i] -= old[i];
+        }
+        return new ViewSummary(copy, copySums);
+    }
+}
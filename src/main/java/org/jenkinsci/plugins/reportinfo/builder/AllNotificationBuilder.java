@@ -23,21 +23,56 @@
  */
 package org.jenkinsci.plugins.reportinfo.builder;
 
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.logging.Level;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.xpath.XPathFactory;
-import org.jenkinsci.plugins.reportinfo.ReportInfo;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.xml.stream.XMLInputFactory;
 import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.ReportFile;
+import org.jenkinsci.plugins.reportinfo.model.ReportIndex;
 
 /**
  *
@@ -45,19 +80,69 @@ import org.jenkinsci.plugins.reportinfo.model.JobNotification;
  */
 public class AllNotificationBuilder extends SimpleFileVisitor<Path> {
 
-    protected JobNotification jn;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String ZIP_SUFFIX = ".zip";
+
+    protected ReportIndex index;
     protected Path path;
+    /**
+     * The root directory with its links resolved, to check the targets of
+     * the links.
+     */
+    private Path realPath;
     private final NotificationBuilder[] all = {new Checkstyle(), new FindBugs(), new PMD(), new Tests()};
-    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-    XPathFactory pathFactory = XPathFactory.newInstance();
+    private final ReportMatcher matcher;
     private Set<String> ignoreFolders = new HashSet<>();
     PrintStream logger;
+    private final ScanOptions options;
+    private ThreadPoolExecutor executor;
+    /**
+     * The reports being parsed, in the order of the walk.
+     */
+    private final Deque<Future<ReportFile>> pending = new ArrayDeque<>();
+    private Map<String, ReportFile> previous = Collections.emptyMap();
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    /**
+     * The number of details kept by type by all the parsed reports, in
+     * first-N mode.
+     */
+    private final AtomicIntegerArray accepted = new AtomicIntegerArray(NotificationType.values().length);
+    private int reused;
+    private int parsed;
+    private int visitedFiles;
+    private int visitedDirectories;
+    private int skipped;
+    /**
+     * The time when the walk stops, from the time budget.
+     */
+    private long deadline = Long.MAX_VALUE;
+    private final ScanMetrics metrics = new ScanMetrics();
 
-    public AllNotificationBuilder(JobNotification jn, Path path, String excludeFolders, PrintStream logger) {
-        this.jn = jn;
+    /**
+     * Create the scan.
+     *
+     * @param index receive the report files in the order of the walk
+     * @param path the root directory
+     * @param options the settings of the scan
+     * @param logger the build logger
+     */
+    public AllNotificationBuilder(ReportIndex index, Path path, ScanOptions options, PrintStream logger) {
+        this.index = index;
         this.path = path;
+        this.options = options;
         this.logger = logger;
-        for(String folder: excludeFolders.split(",")) {
+        index.setLimits(options.getLimitsSignature());
+        index.setIncludes(options.getIncludesSignature());
+        String[] includes = new String[all.length];
+        for (int i = 0; i < all.length; i++) {
+            includes[i] = options.getIncludes(all[i].getType());
+            if (includes[i] == null) {
+                includes[i] = all[i].getDefaultIncludes();
+            }
+        }
+        matcher = new ReportMatcher(all, includes);
+        for(String folder: options.getExcludeFolders().split(",")) {
             String ftrim = folder.trim();
             if(ftrim.isEmpty()) {
                 continue;
@@ -66,60 +151,696 @@ public class AllNotificationBuilder extends SimpleFileVisitor<Path> {
         }
     }
 
+    /**
+     * Set the report files of the previous scan. A file with the same size
+     * and modification time, or the same content, is not parsed again and
+     * is added to the index as reused.
+     *
+     * @param previous the fingerprints by relative path
+     */
+    public void setPrevious(Map<String, ReportFile> previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * @return the number of report files not parsed because unchanged
+     */
+    public int getReused() {
+        return reused;
+    }
+
+    /**
+     * @return the number of report files parsed
+     */
+    public int getParsed() {
+        return parsed;
+    }
+
+    /**
+     * @return the measures of the scan, complete after {@link #start}
+     */
+    public ScanMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Share the repeated strings (files, rules) of the scan.
+     *
+     * @param value a string or null
+     * @return the shared instance
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String previousValue = strings.putIfAbsent(value, value);
+        return previousValue == null ? value : previousValue;
+    }
+
+    XMLInputFactory getInputFactory() {
+        return ParserContext.get().getInputFactory();
+    }
+
     public void start() {
+        long start = System.currentTimeMillis();
+        if (options.getMaxMillis() > 0) {
+            deadline = start + options.getMaxMillis();
+        }
+        int threads = options.getThreads();
+        if (threads > 1) {
+            executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(options.getQueueSize()),
+                    new ParserThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+        }
         try {
-            Files.walkFileTree(path, this);
+            if (options.getLocations() != null) {
+                walkLocations();
+            }
+            if (options.getLocations() == null || (index.getFiles().isEmpty() && metrics.getStopped() == null)) {
+                Files.walkFileTree(path, this);
+                merge(true);
+                index.setPartialScans(0);
+            }
         } catch (IOException ex) {
             ex.printStackTrace(logger);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            ex.printStackTrace(logger);
+        } finally {
+            if (executor != null) {
+                for (Future<ReportFile> future : pending) {
+                    future.cancel(true);
+                }
+                pending.clear();
+                executor.shutdownNow();
+                executor = null;
+            }
+            metrics.setWalkMillis(System.currentTimeMillis() - start);
+            metrics.setDirectories(visitedDirectories);
+            metrics.setFiles(visitedFiles);
+            metrics.setMatched(reused + parsed);
+            metrics.setReused(reused);
+            metrics.setSkipped(skipped);
+        }
+    }
+
+    /**
+     * Scan only the directories where the previous scans found reports.
+     *
+     * @throws IOException if a directory cannot be read
+     * @throws InterruptedException if interrupted while waiting for a parser
+     */
+    private void walkLocations() throws IOException, InterruptedException {
+        logger.println("Scan " + options.getLocations().size() + " known report location(s)");
+        for (String location : options.getLocations()) {
+            if (metrics.getStopped() != null) {
+                break;
+            }
+            Path dir = path.resolve(location);
+            if (Files.isDirectory(dir)) {
+                Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), 1, this);
+            }
+        }
+        merge(true);
+        if (index.getFiles().isEmpty() && metrics.getStopped() == null) {
+            logger.println("No report found in the known locations, scan the whole workspace");
+        } else {
+            index.setPartialScans(options.getPartialScans() + 1);
+        }
+    }
+
+    /**
+     * Check the time and file budgets of the walk. The reports already found
+     * are still parsed when a budget is exceeded.
+     *
+     * @return true if the walk must stop
+     */
+    private boolean exceeded() {
+        if (metrics.getStopped() != null) {
+            return true;
+        }
+        String stopped = null;
+        if (System.currentTimeMillis() > deadline) {
+            stopped = "time budget of " + options.getMaxMillis() + " ms exceeded";
+        } else if (options.getMaxFiles() > 0 && visitedFiles >= options.getMaxFiles()) {
+            stopped = "file budget of " + options.getMaxFiles() + " file(s) exceeded";
+        }
+        if (stopped == null) {
+            return false;
+        }
+        stop(stopped);
+        return true;
+    }
+
+    private void stop(String stopped) {
+        metrics.setStopped(stopped);
+        logger.println("Scan stopped: " + stopped + ", the report info is partial");
+    }
+
+    /**
+     * Check the size budget of a report.
+     *
+     * @param name the path of the report relative to the workspace
+     * @param file the path of the file in the index, the archive of an entry
+     * @param size the number of bytes of the report, uncompressed
+     * @return true if the report must not be parsed
+     */
+    private boolean oversized(String name, String file, long size) {
+        long max = options.getMaxReportBytes();
+        if (max <= 0 || size <= max) {
+            return false;
+        }
+        skip(name, file, size + " byte(s) over the size budget of " + max + " byte(s)");
+        return true;
+    }
+
+    /**
+     * Record a report not parsed because of the size budget. The file is
+     * kept in the index, so that the next partial scans still visit its
+     * directory.
+     */
+    private void skip(String name, String file, String reason) {
+        skipped++;
+        List<String> files = index.getSkipped();
+        if (files.isEmpty() || !files.get(files.size() - 1).equals(file)) {
+            files.add(file);
+        }
+        logger.println("Skip " + name + ": " + reason);
+    }
+
+    /**
+     * Parse a report now or in a worker.
+     *
+     * @param builder the report reader, null for an archive or an unchanged
+     * file
+     * @param entries the readers of the reports of an archive by entry name,
+     * null for a report or an unchanged file
+     * @param file the report or the archive
+     * @param rel the path of the file relative to the workspace
+     * @param attrs the attributes of the file
+     * @throws IOException if the report cannot be read
+     */
+    private void parse(final NotificationBuilder builder, final Map<String, NotificationBuilder> entries,
+            final Path file, final String rel, BasicFileAttributes attrs) throws IOException {
+        final long size = attrs.size();
+        final long lastModified = attrs.lastModifiedTime().toMillis();
+        final ReportFile prev = previous.get(rel);
+        Callable<ReportFile> task;
+        if (unchanged(rel, attrs)) {
+            ReportFile result = new ReportFile(rel, size, lastModified, prev.getHash());
+            result.setReused(true);
+            task = new Done(result);
+        } else {
+            task = new Callable<ReportFile>() {
+                @Override
+                public ReportFile call() throws IOException {
+                    String hash = hash(file);
+                    ReportFile result = new ReportFile(rel, size, lastModified, hash);
+                    if (prev != null && hash.equals(prev.getHash())) {
+                        result.setReused(true);
+                    } else {
+                        JobNotification part = new JobNotification();
+                        if (options.getLimits() != null) {
+                            part.setLimits(options.getLimits(), options.isBySeverity());
+                            part.shareLimits(accepted);
+                        }
+                        try {
+                            read(part);
+                        } catch (IOException | RuntimeException ex) {
+                            part.releaseLimits();
+                            throw ex;
+                        }
+                        part.trim();
+                        result.setDetails(part.getList());
+                        result.setTotals(part.getTotals());
+                        result.setDropped(part.getDropped());
+                    }
+                    return result;
+                }
+
+                private void read(JobNotification part) throws IOException {
+                    if (entries == null && builder instanceof FileNotificationBuilder
+                            && !rel.endsWith(GZIP_SUFFIX)) {
+                        long start = System.nanoTime();
+                        ((FileNotificationBuilder) builder).parse(file, part, AllNotificationBuilder.this);
+                        metrics.addParse(builder.getType(), System.nanoTime() - start, size, count(part));
+                    } else if (entries == null) {
+                        try (BoundedInputStream in = new BoundedInputStream(open(file),
+                                options.getMaxReportBytes())) {
+                            parse(builder, in, part, size);
+                            in.check(rel, rel);
+                        }
+                    } else {
+                        try (ZipFile zip = new ZipFile(file.toFile())) {
+                            for (Map.Entry<String, NotificationBuilder> entry : entries.entrySet()) {
+                                ZipEntry zipEntry = zip.getEntry(entry.getKey());
+                                try (BoundedInputStream in = new BoundedInputStream(zip.getInputStream(zipEntry),
+                                        options.getMaxReportBytes())) {
+                                    parse(entry.getValue(), in, part, zipEntry.getCompressedSize());
+                                    in.check(rel + '/' + entry.getKey(), rel);
+                                }
+                            }
+                        }
+                    }
+                }
+            };
+        }
+        if (executor == null || task instanceof Done) {
+            FutureTask<ReportFile> future = new FutureTask<>(task);
+            future.run();
+            pending.add(future);
+        } else {
+            pending.add(executor.submit(task));
+        }
+        try {
+            merge(false);
+        } catch (InterruptedException ex) {
+            InterruptedIOException iex = new InterruptedIOException();
+            iex.initCause(ex);
+            throw iex;
+        }
+    }
+
+    /**
+     * Parse a report and record the measures.
+     *
+     * @param builder the report reader
+     * @param in the content of the report
+     * @param part the notifications receiving the details
+     * @param size the number of bytes read from the disk
+     */
+    private void parse(NotificationBuilder builder, InputStream in, JobNotification part, long size) {
+        long issues = -count(part);
+        long start = System.nanoTime();
+        builder.parse(in, part, this);
+        issues += count(part);
+        metrics.addParse(builder.getType(), System.nanoTime() - start, size, issues);
+    }
+
+    private static long count(JobNotification part) {
+        long issues = 0;
+        for (int total : part.getTotalCounts()) {
+            issues += total;
+        }
+        return issues;
+    }
+
+    /**
+     * Compute the SHA-1 of a file.
+     *
+     * @param file the file
+     * @return the hash in hexadecimal
+     * @throws IOException if the file cannot be read
+     */
+    static String hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Add the parsed reports to the result, in the order of the walk. The
+     * reports still parsed when the time budget is exceeded are cancelled.
+     *
+     * @param wait wait for all the reports or only merge the completed ones
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void merge(boolean wait) throws InterruptedException {
+        while (!pending.isEmpty() && (wait || pending.peek().isDone())) {
+            try {
+                Future<ReportFile> future = pending.peek();
+                ReportFile file = deadline == Long.MAX_VALUE ? future.get()
+                        : future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                pending.poll();
+                if (file.isReused()) {
+                    reused++;
+                } else {
+                    parsed++;
+                }
+                index.getFiles().add(file);
+            } catch (TimeoutException ex) {
+                if (metrics.getStopped() == null) {
+                    stop("time budget of " + options.getMaxMillis() + " ms exceeded");
+                }
+                logger.println(pending.size() + " report(s) not parsed in time");
+                for (Future<ReportFile> future : pending) {
+                    future.cancel(true);
+                }
+                pending.clear();
+            } catch (CancellationException ex) {
+                pending.poll();
+            } catch (ExecutionException ex) {
+                pending.poll();
+                if (ex.getCause() instanceof OversizedReportException) {
+                    OversizedReportException oversized = (OversizedReportException) ex.getCause();
+                    skip(oversized.name, oversized.file, oversized.getMessage());
+                } else {
+                    ex.getCause().printStackTrace(logger);
+                }
+            }
         }
     }
 
     @Override
     public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        if (exceeded()) {
+            return FileVisitResult.TERMINATE;
+        }
         Path filenamePath = dir.getFileName();
         if(filenamePath != null && ignoreFolders.contains(filenamePath.toString())) {
             return FileVisitResult.SKIP_SUBTREE;
         }
+        if (!matcher.mayContain(relativize(dir))) {
+            return FileVisitResult.SKIP_SUBTREE;
+        }
+        visitedDirectories++;
         return FileVisitResult.CONTINUE;
     }
 
     @Override
     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-        Path filenamePath = file.getFileName();
-        if (filenamePath == null || !filenamePath.toString().endsWith(".xml")) {
+        if (attrs.isSymbolicLink()) {
+            attrs = readLinkTarget(file);
+            if (attrs == null) {
+                return FileVisitResult.CONTINUE;
+            }
+        }
+        if (!attrs.isRegularFile()) {
             return FileVisitResult.CONTINUE;
         }
-        for (int i = 0; i < all.length; i++) {
-            NotificationBuilder builder = all[i];
-            String filename = filenamePath.toString();
-            if (builder.getFileNames().containsKey(filename)) {
-                List<String> paths = builder.getFileNames().get(filename);
-                Path cpath = file.getParent();
-                boolean ok = true;
-                for (int j = 0; j < paths.size(); j++) {
-                    if (cpath == null) {
-                        ok = false;
-                        break;
-                    } else {
-                        Path fpath = cpath.getFileName();
-                        if (fpath == null || !fpath.toString().equals(paths.get(j))) {
-                            ok = false;
-                            break;
-                        }
+        if (exceeded()) {
+            return FileVisitResult.TERMINATE;
+        }
+        visitedFiles++;
+        String rel = relativize(file);
+        if (rel.endsWith(ZIP_SUFFIX)) {
+            if (unchanged(rel, attrs)) {
+                parse(null, null, file, rel, attrs);
+            } else if (options.isDetectReports() || matcher.mayContain(rel)) {
+                Map<String, NotificationBuilder> entries = listEntries(file, rel);
+                if (!entries.isEmpty()) {
+                    parse(null, entries, file, rel, attrs);
+                }
+            }
+            return FileVisitResult.CONTINUE;
+        }
+        // a compressed report is matched without its extension
+        String name = rel.endsWith(GZIP_SUFFIX) ? rel.substring(0, rel.length() - GZIP_SUFFIX.length()) : rel;
+        NotificationBuilder builder = matcher.match(name);
+        if (builder == null && !(options.isDetectReports() && name.endsWith(".xml"))) {
+            return FileVisitResult.CONTINUE;
+        }
+        // only the reports parsed again are opened to check their root element
+        if (!unchanged(rel, attrs)) {
+            try (InputStream in = open(file)) {
+                builder = sniff(XmlUtils.rootElement(in), builder);
+            } catch (IOException ex) {
+                ex.printStackTrace(logger);
+                builder = null;
+            }
+            if (builder == null) {
+                return FileVisitResult.CONTINUE;
+            }
+        }
+        long size = rel.endsWith(GZIP_SUFFIX) ? gzipSize(file, attrs.size()) : attrs.size();
+        if (!oversized(rel, rel, size)) {
+            parse(builder, null, file, rel, attrs);
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    /**
+     * Tell if a file has the size and modification time of a report of the
+     * previous scan, so that it is reused without being read.
+     *
+     * @param rel the path of the file relative to the workspace
+     * @param attrs the attributes of the file
+     * @return true if the file is unchanged
+     */
+    private boolean unchanged(String rel, BasicFileAttributes attrs) {
+        ReportFile prev = previous.get(rel);
+        return prev != null && prev.getSize() == attrs.size()
+                && prev.getLastModified() == attrs.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Read the attributes of the target of a link. The links are not followed
+     * by the walk, a linked report is read only if its target is inside the
+     * root directory.
+     *
+     * @param link the link
+     * @return the attributes of the target, or null if the target does not
+     * exist or is outside the root directory
+     */
+    private BasicFileAttributes readLinkTarget(Path link) {
+        try {
+            if (realPath == null) {
+                realPath = path.toRealPath();
+            }
+            Path target = link.toRealPath();
+            if (!target.startsWith(realPath)) {
+                logger.println("Skip " + relativize(link) + ": the link points outside of " + path);
+                return null;
+            }
+            return Files.readAttributes(target, BasicFileAttributes.class);
+        } catch (IOException ex) {
+            // a broken link
+            return null;
+        }
+    }
+
+    /**
+     * Find the reports in a zip archive, from its central directory. The
+     * entries are matched as if the archive were a directory.
+     *
+     * @param file the archive
+     * @param rel the path of the archive relative to the workspace
+     * @return the readers by entry name, in the order of the archive
+     */
+    private Map<String, NotificationBuilder> listEntries(Path file, String rel) {
+        Map<String, NotificationBuilder> entries = new LinkedHashMap<>();
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            for (Enumeration<? extends ZipEntry> it = zip.entries(); it.hasMoreElements();) {
+                ZipEntry entry = it.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String name = rel + '/' + entry.getName();
+                NotificationBuilder builder = matcher.match(name);
+                if (builder != null || (options.isDetectReports() && name.endsWith(".xml"))) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        builder = sniff(XmlUtils.rootElement(in), builder);
                     }
-                    cpath = cpath.getParent();
                 }
-                if (ok) {
-                    builder.parse(file, jn, this);
-                    return FileVisitResult.CONTINUE;
+                // the size of the central directory, the bytes read are still counted by the parse
+                long size = entry.getSize() < 0 ? entry.getCompressedSize() : entry.getSize();
+                if (builder != null && !oversized(name, rel, size)) {
+                    entries.put(entry.getName(), builder);
                 }
-            } else if (builder.accept(filename)) {
-                builder.parse(file, jn, this);
-                return FileVisitResult.CONTINUE;
             }
+        } catch (IOException ex) {
+            ex.printStackTrace(logger);
         }
+        return entries;
+    }
 
-        return FileVisitResult.CONTINUE;
+    /**
+     * Get the uncompressed size of a gzip file from its trailer, the size
+     * modulo 2^32 of the last member. The bytes read are still counted by the
+     * parse.
+     *
+     * @param file the gzip file
+     * @param size the size of the file
+     * @return the uncompressed size or the size of the file if it cannot be
+     * read
+     */
+    static long gzipSize(Path file, long size) {
+        // header of 10 bytes, trailer of 8 bytes
+        if (size < 18) {
+            return size;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (trailer.hasRemaining() && channel.read(trailer, size - 4 + trailer.position()) > 0) {
+                // read the 4 bytes
+            }
+            return trailer.hasRemaining() ? size : trailer.getInt(0) & 0xffffffffL;
+        } catch (IOException ex) {
+            return size;
+        }
+    }
+
+    /**
+     * Open a report, uncompressed if it is a gzip file.
+     *
+     * @param file the report
+     * @return the content of the report
+     * @throws IOException if the file cannot be read
+     */
+    static InputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(GZIP_SUFFIX)) {
+            try {
+                return new GZIPInputStream(in, 64 * 1024);
+            } catch (IOException ex) {
+                in.close();
+                throw ex;
+            }
+        }
+        return in;
+    }
+
+    /**
+     * Check the type of a report with its root element, so the files that are
+     * not reports are not parsed.
+     *
+     * @param root the root element of the file, null if not found
+     * @param matched the reader matching the path or null
+     * @return the reader of the file or null if the file is not a report
+     */
+    private NotificationBuilder sniff(String root, NotificationBuilder matched) {
+        if (root == null || (matched != null && matched.acceptRoot(root))) {
+            // keep the reader of the path when the root element is too far
+            return matched;
+        }
+        for (NotificationBuilder builder : all) {
+            if (builder.acceptRoot(root)) {
+                return builder;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the path relative to the workspace, separated by '/'
+     */
+    private String relativize(Path file) {
+        return path.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Count the bytes read from a compressed report and stop after the size
+     * budget, the size announced by an archive may be wrong.
+     */
+    static final class BoundedInputStream extends FilterInputStream {
+
+        private final long max;
+        private long count;
+
+        /**
+         * @param in the uncompressed content
+         * @param max the maximum number of bytes, 0 or less for no limit
+         */
+        BoundedInputStream(InputStream in, long max) {
+            super(in);
+            this.max = max <= 0 ? Long.MAX_VALUE - 1 : max;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (count > max) {
+                throw new IOException("over the size budget of " + max + " byte(s)");
+            }
+            // one byte more than the budget tells that the report is over it
+            int n = super.read(b, off, (int) Math.min(len, max + 1 - count));
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, max + 1 - count));
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Check that the report was read within the budget.
+         *
+         * @param name the path of the report relative to the workspace
+         * @param file the path of the file in the index, the archive of an
+         * entry
+         * @throws OversizedReportException if the report is over the budget
+         */
+        void check(String name, String file) throws OversizedReportException {
+            if (count > max) {
+                throw new OversizedReportException(name, file,
+                        "over the size budget of " + max + " byte(s) once uncompressed");
+            }
+        }
     }
 
+    /**
+     * A compressed report over the size budget, found by the parse.
+     */
+    static final class OversizedReportException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+        private final String name;
+        private final String file;
+
+        OversizedReportException(String name, String file, String message) {
+            super(message);
+            this.name = name;
+            this.file = file;
+        }
+    }
+
+    /**
+     * A report file known without parsing.
+     */
+    private static class Done implements Callable<ReportFile> {
+
+        private final ReportFile file;
+
+        Done(ReportFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public ReportFile call() {
+            return file;
+        }
+    }
+
+    private static class ParserThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "report-info-parser-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
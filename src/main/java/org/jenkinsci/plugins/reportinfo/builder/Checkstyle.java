@@ -24,24 +24,13 @@
 package org.jenkinsci.plugins.reportinfo.builder;
 
 import java.io.IOException;
-import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
+import java.io.InputStream;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.jenkinsci.plugins.reportinfo.model.JobNotification;
 import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
 import org.jenkinsci.plugins.reportinfo.model.NotificationType;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
 
 /**
  * CheckStyle XML reader.
@@ -50,44 +39,78 @@ import org.xml.sax.SAXException;
  */
 public class Checkstyle implements NotificationBuilder {
 
-    private static final Map<String, List<String>> FILENAMES = new HashMap<>();
+    public static final String DEFAULT_INCLUDES = "**/build/reports/checkstyle/main.xml, "
+            + "**/build/reports/checkstyle/test.xml, "
+            + "**/checkstyle-result.xml";
 
-    static {
-        FILENAMES.put("main.xml", Arrays.asList("checkstyle", "reports", "build"));
-        FILENAMES.put("test.xml", Arrays.asList("checkstyle", "reports", "build"));
-        List<String> elist = Collections.emptyList();
-        FILENAMES.put("checkstyle-result.xml", elist);
+    @Override
+    public NotificationType getType() {
+        return NotificationType.CHECKSTYLE;
     }
 
     @Override
-    public Map<String, List<String>> getFileNames() {
-        return FILENAMES;
+    public String getDefaultIncludes() {
+        return DEFAULT_INCLUDES;
     }
 
     @Override
-    public void parse(Path file, JobNotification jn, AllNotificationBuilder builder) {
+    public boolean acceptRoot(String element) {
+        return "checkstyle".equals(element);
+    }
+
+    @Override
+    public void parse(InputStream in, final JobNotification jn, final AllNotificationBuilder builder) {
         try {
-            Document doc = builder.factory.newDocumentBuilder().parse(file.toFile());
-            XPath xpath = builder.pathFactory.newXPath();
-            NodeList errors = (NodeList) xpath.evaluate("/checkstyle/file/error", doc, XPathConstants.NODESET);
-            for (int i = 0; i < errors.getLength(); i++) {
-                Node error = errors.item(i);
-                NamedNodeMap attr = error.getAttributes();
-                Node column = attr.getNamedItem("column");
-                jn.getList().add(new NotificationDetail(NotificationType.CHECKSTYLE,
-                        attr.getNamedItem("message").getNodeValue()
-                        + " at [line " + attr.getNamedItem("line").getNodeValue()
-                        + (column == null ? "" : ":" + column.getNodeValue())
-                        + "] in " + error.getParentNode().getAttributes().getNamedItem("name").getNodeValue()));
-            }
-        } catch (XPathExpressionException | IOException | SAXException | ParserConfigurationException ex) {
+            XmlUtils.read(in, new XmlUtils.Handler() {
+
+                private boolean root;
+                private String name;
+
+                @Override
+                public void start(XMLStreamReader reader, int depth) {
+                    String element = reader.getLocalName();
+                    if (depth == 1) {
+                        root = "checkstyle".equals(element);
+                    } else if (depth == 2 && root && "file".equals(element)) {
+                        name = builder.intern(XmlUtils.attr(reader, "name"));
+                    } else if (depth == 3 && name != null && "error".equals(element)) {
+                        Severity severity = severity(XmlUtils.attr(reader, "severity"));
+                        if (!jn.offer(NotificationType.CHECKSTYLE, severity)) {
+                            jn.drop(NotificationType.CHECKSTYLE, XmlUtils.attr(reader, "source"), name,
+                                    XmlUtils.attr(reader, "message"));
+                            return;
+                        }
+                        jn.getList().add(new NotificationDetail(NotificationType.CHECKSTYLE, severity,
+                                builder.intern(XmlUtils.attr(reader, "source")), name,
+                                XmlUtils.parseInt(XmlUtils.attr(reader, "line")),
+                                XmlUtils.parseInt(XmlUtils.attr(reader, "column")),
+                                XmlUtils.attr(reader, "message")));
+                    }
+                }
+
+                @Override
+                public void end(XMLStreamReader reader, int depth) {
+                    if (depth == 2) {
+                        name = null;
+                    }
+                }
+
+                @Override
+                public void text(XMLStreamReader reader) {
+                }
+            }, builder);
+        } catch (IOException | XMLStreamException ex) {
             ex.printStackTrace(builder.logger);
         }
     }
 
-    @Override
-    public boolean accept(String fileName) {
-        return false;
+    private static Severity severity(String severity) {
+        if ("error".equals(severity)) {
+            return Severity.HIGH;
+        } else if ("info".equals(severity) || "ignore".equals(severity)) {
+            return Severity.LOW;
+        }
+        return Severity.NORMAL;
     }
 
 }
@@ -24,25 +24,13 @@
 package org.jenkinsci.plugins.reportinfo.builder;
 
 import java.io.IOException;
-import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.ResourceBundle;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
+import java.io.InputStream;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.jenkinsci.plugins.reportinfo.model.JobNotification;
 import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
 import org.jenkinsci.plugins.reportinfo.model.NotificationType;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
 
 /**
  * FindBugs XML reader.
@@ -51,81 +39,116 @@ import org.xml.sax.SAXException;
  */
 public class FindBugs implements NotificationBuilder {
 
-    private static final Map<String, List<String>> FILENAMES = new HashMap<>();
+    public static final String DEFAULT_INCLUDES = "**/build/reports/findbugs/main.xml, "
+            + "**/build/reports/findbugs/test.xml, "
+            + "**/findbugs.xml";
 
-    static {
-        FILENAMES.put("main.xml", Arrays.asList("findbugs", "reports", "build"));
-        FILENAMES.put("test.xml", Arrays.asList("findbugs", "reports", "build"));
-        List<String> elist = Collections.emptyList();
-        FILENAMES.put("findbugs.xml", elist);
+    @Override
+    public NotificationType getType() {
+        return NotificationType.FINDBUG;
     }
 
     @Override
-    public Map<String, List<String>> getFileNames() {
-        return FILENAMES;
+    public String getDefaultIncludes() {
+        return DEFAULT_INCLUDES;
     }
 
     @Override
-    public void parse(Path file, JobNotification jn, AllNotificationBuilder builder) {
-        ResourceBundle rb = ResourceBundle.getBundle("findbugsmessages");
+    public boolean acceptRoot(String element) {
+        return "BugCollection".equals(element);
+    }
+
+    @Override
+    public void parse(InputStream in, final JobNotification jn, final AllNotificationBuilder builder) {
         try {
-            Document doc = builder.factory.newDocumentBuilder().parse(file.toFile());
-            XPath xpath = builder.pathFactory.newXPath();
-            NodeList errors = doc.getElementsByTagName("BugInstance");
-            for (int i = 0; i < errors.getLength(); i++) {
-                Node error = errors.item(i);
-                NamedNodeMap attr = error.getAttributes();
-                StringBuilder message = new StringBuilder();
-                Node abbrevNode = attr.getNamedItem("abbrev");
-                String type = attr.getNamedItem("type").getNodeValue();
-                if(abbrevNode != null) {
-                    message.append(abbrevNode.getNodeValue());
-                } else {
-                    message.append(type);
-                }
-                message.append(": ");
-                if(rb.containsKey(type)) {
-                    message.append(rb.getString(type));
-                } else {
-                    message.append(type);
+            XmlUtils.read(in, new XmlUtils.Handler() {
+
+                /**
+                 * The depth of the opened file element or -1.
+                 */
+                private int fileDepth = -1;
+                private String fileClassname;
+                /**
+                 * The depth of the opened BugInstance element or -1.
+                 */
+                private int bugDepth = -1;
+                private String type;
+                private String abbrev;
+                private String lineNumber;
+                private String priority;
+                private boolean inFile;
+                private boolean source;
+                private String sourceClassname;
+                private String sourceStart;
+
+                @Override
+                public void start(XMLStreamReader reader, int depth) {
+                    String element = reader.getLocalName();
+                    if (bugDepth == -1 && "BugInstance".equals(element)) {
+                        bugDepth = depth;
+                        type = XmlUtils.attr(reader, "type");
+                        abbrev = XmlUtils.attr(reader, "abbrev");
+                        lineNumber = XmlUtils.attr(reader, "lineNumber");
+                        priority = XmlUtils.attr(reader, "priority");
+                        inFile = fileDepth == depth - 1;
+                        source = false;
+                    } else if (bugDepth == depth - 1 && !source && "SourceLine".equals(element)) {
+                        source = true;
+                        sourceClassname = XmlUtils.attr(reader, "classname");
+                        sourceStart = XmlUtils.attr(reader, "start");
+                    } else if (bugDepth == -1 && "file".equals(element)) {
+                        fileDepth = depth;
+                        fileClassname = XmlUtils.attr(reader, "classname");
+                    }
                 }
-                NodeList sources = (NodeList) xpath.evaluate("SourceLine", error, XPathConstants.NODESET);
-                if(sources.getLength() > 0) {
-                    Node source = sources.item(0);
-                    NamedNodeMap sattr = source.getAttributes();
-                    message.append(" in ");
-                    message.append(sattr.getNamedItem("classname").getNodeValue());
-                    message.append(" at [line ");
-                    message.append(sattr.getNamedItem("start").getNodeValue());
-                    message.append("]");
-                } else {
-                    Node parent = error.getParentNode();
-                    if("file".equals(parent.getNodeName())) {
-                        Node classname = parent.getAttributes().getNamedItem("classname");
-                        if(classname != null) {
-                            message.append(" in ");
-                            message.append(classname.getNodeValue());
+
+                @Override
+                public void end(XMLStreamReader reader, int depth) {
+                    if (depth == bugDepth) {
+                        bugDepth = -1;
+                        Severity severity = Severity.fromPriority(priority, 1, 2);
+                        boolean kept = jn.offer(NotificationType.FINDBUG, severity);
+                        String classname;
+                        String line;
+                        if (source) {
+                            classname = sourceClassname;
+                            line = sourceStart;
+                        } else {
+                            classname = inFile ? fileClassname : null;
+                            line = lineNumber;
                         }
+                        if (kept) {
+                            jn.getList().add(new NotificationDetail(NotificationType.FINDBUG,
+                                    severity, builder.intern(type),
+                                    builder.intern(classname), XmlUtils.parseInt(line), 0, builder.intern(message())));
+                        } else {
+                            jn.drop(NotificationType.FINDBUG, type, classname, message());
+                        }
+                    } else if (depth == fileDepth) {
+                        fileDepth = -1;
                     }
-                    Node lineNumber = attr.getNamedItem("lineNumber");
-                    if(lineNumber != null) {
-                        message.append(" at [line ");
-                        message.append(lineNumber.getNodeValue());
-                        message.append("]");
+                }
+
+                private String message() {
+                    StringBuilder message = new StringBuilder();
+                    if (abbrev != null) {
+                        message.append(abbrev);
+                    } else {
+                        message.append(type);
                     }
+                    message.append(": ");
+                    String description = ParserContext.get().getFindBugsMessage(type);
+                    message.append(description == null ? type : description);
+                    return message.toString();
+                }
+
+                @Override
+                public void text(XMLStreamReader reader) {
                 }
-                
-                jn.getList().add(new NotificationDetail(NotificationType.FINDBUG,
-                        message.toString()));
-            }
-        } catch (XPathExpressionException | IOException | SAXException | ParserConfigurationException ex) {
+            }, builder);
+        } catch (IOException | XMLStreamException ex) {
             ex.printStackTrace(builder.logger);
         }
     }
 
-    @Override
-    public boolean accept(String fileName) {
-        return false;
-    }
-
 }
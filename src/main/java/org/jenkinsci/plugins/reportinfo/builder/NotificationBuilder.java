@@ -23,10 +23,9 @@
  */
 package org.jenkinsci.plugins.reportinfo.builder;
 
-import java.nio.file.Path;
-import java.util.List;
-import java.util.Map;
+import java.io.InputStream;
 import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
 
 /**
  *
@@ -34,9 +33,30 @@ import org.jenkinsci.plugins.reportinfo.model.JobNotification;
  */
 public interface NotificationBuilder {
 
-    Map<String, List<String>> getFileNames();
+    NotificationType getType();
 
-    void parse(Path file, JobNotification jn, AllNotificationBuilder builder);
+    /**
+     * @return the Ant-style patterns of the reports, separated by comma, used
+     * when the job does not define its own patterns
+     */
+    String getDefaultIncludes();
 
-    boolean accept(String fileName);
+    /**
+     * Tell if a file is a report of this type from its root element, read
+     * without parsing the file.
+     *
+     * @param element the name of the root element, without prefix
+     * @return true if the file can be parsed
+     */
+    boolean acceptRoot(String element);
+
+    /**
+     * Parse a report.
+     *
+     * @param in the content of the report, a file or a compressed entry. It is
+     * not closed.
+     * @param jn the notifications receiving the details
+     * @param builder the builder
+     */
+    void parse(InputStream in, JobNotification jn, AllNotificationBuilder builder);
 }
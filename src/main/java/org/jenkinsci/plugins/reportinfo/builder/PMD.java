@@ -24,24 +24,13 @@
 package org.jenkinsci.plugins.reportinfo.builder;
 
 import java.io.IOException;
-import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
+import java.io.InputStream;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.jenkinsci.plugins.reportinfo.model.JobNotification;
 import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
 import org.jenkinsci.plugins.reportinfo.model.NotificationType;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
 
 /**
  * PMD XML reader.
@@ -50,44 +39,83 @@ import org.xml.sax.SAXException;
  */
 public class PMD implements NotificationBuilder {
 
-    private static final Map<String, List<String>> FILENAMES = new HashMap<>();
+    public static final String DEFAULT_INCLUDES = "**/build/reports/pmd/main.xml, "
+            + "**/build/reports/pmd/test.xml, "
+            + "**/pmd.xml";
 
-    static {
-        FILENAMES.put("main.xml", Arrays.asList("pmd", "reports", "build"));
-        FILENAMES.put("test.xml", Arrays.asList("pmd", "reports", "build"));
-        List<String> elist = Collections.emptyList();
-        FILENAMES.put("pmd.xml", elist);
+    @Override
+    public NotificationType getType() {
+        return NotificationType.PMD;
     }
 
     @Override
-    public Map<String, List<String>> getFileNames() {
-        return FILENAMES;
+    public String getDefaultIncludes() {
+        return DEFAULT_INCLUDES;
     }
 
     @Override
-    public void parse(Path file, JobNotification jn, AllNotificationBuilder builder) {
-        try {
-            Document doc = builder.factory.newDocumentBuilder().parse(file.toFile());
-            XPath xpath = builder.pathFactory.newXPath();
-            NodeList errors = (NodeList) xpath.evaluate("/pmd/file/violation", doc, XPathConstants.NODESET);
-            for (int i = 0; i < errors.getLength(); i++) {
-                Node error = errors.item(i);
-                NamedNodeMap attr = error.getAttributes();
-                Node column = attr.getNamedItem("begincolumn");
-                jn.getList().add(new NotificationDetail(NotificationType.PMD,
-                        error.getTextContent().trim()
-                        + " at [line " + attr.getNamedItem("beginline").getNodeValue()
-                        + (column == null ? "" : ":" + column.getNodeValue())
-                        + "] in " + error.getParentNode().getAttributes().getNamedItem("name").getNodeValue()));
-            }
-        } catch (XPathExpressionException | IOException | SAXException | ParserConfigurationException ex) {
-            ex.printStackTrace(builder.logger);
-        }
+    public boolean acceptRoot(String element) {
+        return "pmd".equals(element);
     }
 
     @Override
-    public boolean accept(String fileName) {
-        return false;
+    public void parse(InputStream in, final JobNotification jn, final AllNotificationBuilder builder) {
+        try {
+            XmlUtils.read(in, new XmlUtils.Handler() {
+
+                private boolean root;
+                private String name;
+                private int line;
+                private int column;
+                private String rule;
+                private Severity severity;
+                private boolean kept;
+                private StringBuilder text;
+
+                @Override
+                public void start(XMLStreamReader reader, int depth) {
+                    String element = reader.getLocalName();
+                    if (depth == 1) {
+                        root = "pmd".equals(element);
+                    } else if (depth == 2 && root && "file".equals(element)) {
+                        name = builder.intern(XmlUtils.attr(reader, "name"));
+                    } else if (depth == 3 && name != null && "violation".equals(element)) {
+                        severity = Severity.fromPriority(XmlUtils.attr(reader, "priority"), 2, 3);
+                        // the message of a refused violation is still read for its fingerprint
+                        kept = jn.offer(NotificationType.PMD, severity);
+                        line = XmlUtils.parseInt(XmlUtils.attr(reader, "beginline"));
+                        column = XmlUtils.parseInt(XmlUtils.attr(reader, "begincolumn"));
+                        rule = builder.intern(XmlUtils.attr(reader, "rule"));
+                        text = new StringBuilder();
+                    }
+                }
+
+                @Override
+                public void end(XMLStreamReader reader, int depth) {
+                    if (depth == 3 && text != null) {
+                        if (kept) {
+                            jn.getList().add(new NotificationDetail(NotificationType.PMD,
+                                    severity, rule, name, line, column,
+                                    text.toString().trim()));
+                        } else {
+                            jn.drop(NotificationType.PMD, rule, name, text.toString().trim());
+                        }
+                        text = null;
+                    } else if (depth == 2) {
+                        name = null;
+                    }
+                }
+
+                @Override
+                public void text(XMLStreamReader reader) {
+                    if (text != null) {
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                }
+            }, builder);
+        } catch (IOException | XMLStreamException ex) {
+            ex.printStackTrace(builder.logger);
+        }
     }
 
 }
@@ -0,0 +1,178 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ResourceBundle;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * The parser objects shared by the scans of a JVM.
+ *
+ * <p>
+ * The factories, builders and expressions are not thread-safe, each thread
+ * gets its own ones, created on the first use and then reused. The parsers
+ * never load a DTD nor resolve an external entity, so a report with a
+ * DOCTYPE does not make a request to the network.</p>
+ *
+ * @author Gael COLIN
+ */
+public final class ParserContext {
+
+    private static final ParserContext INSTANCE = new ParserContext();
+    private static final int WINDOW_SIZE = 64 * 1024;
+
+    private final ThreadLocal<PerThread> perThread = new ThreadLocal<PerThread>() {
+        @Override
+        protected PerThread initialValue() {
+            return new PerThread();
+        }
+    };
+
+    private ParserContext() {
+    }
+
+    public static ParserContext get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the StAX factory of the current thread.
+     *
+     * @return the factory
+     */
+    public XMLInputFactory getInputFactory() {
+        PerThread state = perThread.get();
+        if (state.inputFactory == null) {
+            state.inputFactory = XmlUtils.newInputFactory();
+        }
+        return state.inputFactory;
+    }
+
+    /**
+     * Get the buffer of the current thread used to read the reports by
+     * window.
+     *
+     * @return the buffer
+     */
+    public ByteBuffer getWindow() {
+        PerThread state = perThread.get();
+        if (state.window == null) {
+            state.window = ByteBuffer.allocate(WINDOW_SIZE);
+        }
+        return state.window;
+    }
+
+    /**
+     * Get the DOM builder of the current thread, reset.
+     *
+     * @return the builder
+     * @throws ParserConfigurationException if the parser does not support the
+     * hardening features
+     */
+    public DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        PerThread state = perThread.get();
+        if (state.documentBuilder == null) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setXIncludeAware(false);
+            factory.setExpandEntityReferences(false);
+            state.documentBuilder = factory.newDocumentBuilder();
+        } else {
+            state.documentBuilder.reset();
+        }
+        return state.documentBuilder;
+    }
+
+    /**
+     * Get an XPath expression compiled once for the current thread.
+     *
+     * @param expression the expression
+     * @return the compiled expression
+     * @throws XPathExpressionException if the expression is not valid
+     */
+    public XPathExpression getExpression(String expression) throws XPathExpressionException {
+        PerThread state = perThread.get();
+        XPathExpression compiled = state.expressions.get(expression);
+        if (compiled == null) {
+            if (state.xpathFactory == null) {
+                state.xpathFactory = XPathFactory.newInstance();
+            }
+            compiled = state.xpathFactory.newXPath().compile(expression);
+            state.expressions.put(expression, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Get the description of a FindBugs bug type.
+     *
+     * @param type the bug type
+     * @return the description or null if the type is unknown
+     */
+    public String getFindBugsMessage(String type) {
+        return type == null ? null : FindBugsMessages.MESSAGES.get(type);
+    }
+
+    private static final class PerThread {
+
+        private XMLInputFactory inputFactory;
+        private ByteBuffer window;
+        private DocumentBuilder documentBuilder;
+        private XPathFactory xpathFactory;
+        private final Map<String, XPathExpression> expressions = new HashMap<>();
+    }
+
+    /**
+     * The FindBugs messages, loaded on the first use.
+     */
+    private static final class FindBugsMessages {
+
+        private static final Map<String, String> MESSAGES = load();
+
+        private static Map<String, String> load() {
+            ResourceBundle bundle = ResourceBundle.getBundle("findbugsmessages");
+            Map<String, String> messages = new HashMap<>(1024);
+            for (Enumeration<String> keys = bundle.getKeys(); keys.hasMoreElements();) {
+                String key = keys.nextElement();
+                messages.put(key, bundle.getString(key));
+            }
+            return Collections.unmodifiableMap(messages);
+        }
+    }
+}
@@ -28,15 +28,9 @@ import hudson.model.AbstractBuild;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.net.URI;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
@@ -47,38 +41,42 @@ import org.xml.sax.SAXException;
  */
 public class PathUtils {
 
-    public static Path getPath(AbstractBuild<?, ?> build, PrintStream logger) {
+    private static final String GRADLE_ROOT = "/project/builders/hudson.plugins.gradle.Gradle/rootBuildScriptDir";
+    private static final String ROOT_POM = "/maven2-moduleset/rootPOM";
+
+    /**
+     * Get the root directory of the reports, on the node of the workspace.
+     *
+     * @param build the build
+     * @param logger the build logger
+     * @return the directory or null if not found
+     */
+    public static FilePath getPath(AbstractBuild<?, ?> build, PrintStream logger) {
+        FilePath workspace = build.getWorkspace();
+        if (workspace == null) {
+            return null;
+        }
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            XPathFactory pathFactory = XPathFactory.newInstance();
+            ParserContext context = ParserContext.get();
             File config = new File(build.getParent().getRootDir(), "config.xml");
-            Document doc = factory.newDocumentBuilder().parse(config);
-            XPath xpath = pathFactory.newXPath();
-            NodeList gradleBuild = (NodeList) xpath.evaluate("/project/builders/hudson.plugins.gradle.Gradle/rootBuildScriptDir", doc, XPathConstants.NODESET);
+            Document doc = context.getDocumentBuilder().parse(config);
+            NodeList gradleBuild = (NodeList) context.getExpression(GRADLE_ROOT).evaluate(doc, XPathConstants.NODESET);
             if (gradleBuild.getLength() > 0) {
-                return Paths.get(gradleBuild.item(0).getTextContent().trim());
+                return new FilePath(workspace, gradleBuild.item(0).getTextContent().trim());
             } else {
-                NodeList rootPom = (NodeList) xpath.evaluate("/maven2-moduleset/rootPOM", doc, XPathConstants.NODESET);
+                NodeList rootPom = (NodeList) context.getExpression(ROOT_POM).evaluate(doc, XPathConstants.NODESET);
                 if (rootPom.getLength() > 0) {
                     File rootPomFile = new File(rootPom.item(0).getTextContent().trim());
                     if (rootPomFile.isAbsolute()) {
-                        return rootPomFile.getParentFile().toPath();
+                        return new FilePath(workspace, rootPomFile.getParent());
                     }
                 }
             }
-            
-            FilePath workspace = build.getWorkspace();
-            if (workspace != null) {
-                URI uri = workspace.toURI();
-                if (uri != null) {
-                    return new File(uri.toURL().getFile()).toPath();
-                }
-            }
-        } catch (InterruptedException| XPathExpressionException | IOException | SAXException | ParserConfigurationException ex) {
+        } catch (XPathExpressionException | IOException | SAXException | ParserConfigurationException ex) {
             ex.printStackTrace(logger);
         }
 
-        return null;
+        return workspace;
     }
 
 }
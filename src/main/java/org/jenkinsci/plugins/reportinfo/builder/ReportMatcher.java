@@ -0,0 +1,200 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Find the reader of a report from its path, with Ant-style patterns.
+ *
+ * <p>
+ * The patterns of all the readers are compiled in a single regular expression
+ * with one group by reader, so a path is matched once whatever the number of
+ * patterns. A second expression tells if a directory can contain a matching
+ * file, the other directories are not walked.</p>
+ *
+ * <p>
+ * Syntax: <code>**</code> matches any number of directories, <code>*</code>
+ * any characters in a name, <code>?</code> one character in a name. The
+ * patterns are relative to the workspace and separated by comma.</p>
+ *
+ * @author Gael COLIN
+ */
+public class ReportMatcher {
+
+    private final NotificationBuilder[] builders;
+    private final Pattern files;
+    private final Pattern directories;
+
+    /**
+     * Compile the patterns.
+     *
+     * @param builders the readers, the first matching reader is used
+     * @param includes the patterns of each reader
+     */
+    public ReportMatcher(NotificationBuilder[] builders, String[] includes) {
+        this.builders = builders;
+        StringBuilder fileRegex = new StringBuilder();
+        StringBuilder dirRegex = new StringBuilder();
+        for (int i = 0; i < builders.length; i++) {
+            StringBuilder group = new StringBuilder();
+            for (String include : split(includes[i])) {
+                List<String> segments = segments(include);
+                if (group.length() > 0) {
+                    group.append('|');
+                }
+                group.append(toRegex(segments, segments.size()));
+                addDirectories(dirRegex, segments);
+            }
+            if (fileRegex.length() > 0) {
+                fileRegex.append('|');
+            }
+            // a reader without pattern has a group that never matches
+            fileRegex.append('(').append(group.length() == 0 ? "(?!)" : group).append(')');
+        }
+        files = Pattern.compile(fileRegex.toString());
+        directories = Pattern.compile(dirRegex.length() == 0 ? "(?!)" : dirRegex.toString());
+    }
+
+    /**
+     * Find the reader of a file.
+     *
+     * @param path the path relative to the workspace, separated by '/'
+     * @return the reader or null if the file is not a report
+     */
+    public NotificationBuilder match(String path) {
+        Matcher matcher = files.matcher(path);
+        if (!matcher.matches()) {
+            return null;
+        }
+        for (int i = 0; i < builders.length; i++) {
+            if (matcher.start(i + 1) != -1) {
+                return builders[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tell if a directory may contain a report.
+     *
+     * @param path the path relative to the workspace, separated by '/', ""
+     * for the workspace
+     * @return false if no pattern can match a file of the directory or of its
+     * sub directories
+     */
+    public boolean mayContain(String path) {
+        return path.isEmpty() || directories.matcher(path).matches();
+    }
+
+    static List<String> split(String includes) {
+        List<String> list = new ArrayList<>();
+        if (includes != null) {
+            for (String include : includes.split(",")) {
+                String trimmed = include.trim();
+                if (!trimmed.isEmpty()) {
+                    list.add(trimmed);
+                }
+            }
+        }
+        return list;
+    }
+
+    private static List<String> segments(String include) {
+        String pattern = include.replace('\\', '/');
+        while (pattern.startsWith("/")) {
+            pattern = pattern.substring(1);
+        }
+        if (pattern.endsWith("/")) {
+            pattern += "**";
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : pattern.split("/")) {
+            if (!segment.isEmpty() && !(segment.equals("**") && !segments.isEmpty()
+                    && segments.get(segments.size() - 1).equals("**"))) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Add the directories that can contain a file matching a pattern: the
+     * prefixes of the pattern, or any directory under the first
+     * <code>**</code>.
+     */
+    private static void addDirectories(StringBuilder regex, List<String> segments) {
+        for (int k = 1; k < segments.size(); k++) {
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            regex.append(toRegex(segments, k));
+            if (segments.get(k - 1).equals("**")) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Convert the first segments of a pattern.
+     */
+    private static String toRegex(List<String> segments, int count) {
+        StringBuilder regex = new StringBuilder("(?:");
+        for (int i = 0; i < count; i++) {
+            String segment = segments.get(i);
+            boolean last = i == count - 1;
+            if (segment.equals("**")) {
+                // zero or more directories
+                if (i == 0) {
+                    regex.append(last ? ".*" : "(?:[^/]*/)*");
+                } else {
+                    regex.append(last ? "(?:/.*)?" : "(?:/[^/]*)*");
+                }
+                continue;
+            }
+            if (i > 0 && !(i == 1 && segments.get(0).equals("**"))) {
+                regex.append('/');
+            }
+            StringBuilder literal = new StringBuilder();
+            for (char c : segment.toCharArray()) {
+                if (c == '*' || c == '?') {
+                    if (literal.length() > 0) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    regex.append(c == '*' ? "[^/]*" : "[^/]");
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+        }
+        return regex.append(')').toString();
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.ReportFile;
+import org.jenkinsci.plugins.reportinfo.model.ReportIndex;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
+
+/**
+ * Compact stream of the notifications sent by the agent to the controller.
+ *
+ * @author Gael COLIN
+ */
+public class ReportStream {
+
+    private static final int MAGIC = 0x52494e36;
+    private static final int FILE = 1;
+    private static final int REUSED = 2;
+    private static final int END = -1;
+    private static final int NULL = -1;
+    private static final int NEW = -2;
+
+    private ReportStream() {
+    }
+
+    /**
+     * Write the report files. The notifications of the reused files are not
+     * written.
+     *
+     * @param index the report files
+     * @param out the stream, not closed
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(ReportIndex index, OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 8192);
+        DataOutputStream data = new DataOutputStream(gzip);
+        Map<String, Integer> strings = new HashMap<>();
+        data.writeInt(MAGIC);
+        writeString(data, index.getLimits(), null);
+        writeString(data, index.getIncludes(), null);
+        data.writeInt(index.getPartialScans());
+        data.writeInt(index.getSkipped().size());
+        for (String skipped : index.getSkipped()) {
+            writeString(data, skipped, null);
+        }
+        for (ReportFile file : index.getFiles()) {
+            data.writeByte(file.isReused() ? REUSED : FILE);
+            writeString(data, file.getPath(), null);
+            data.writeLong(file.getSize());
+            data.writeLong(file.getLastModified());
+            writeString(data, file.getHash(), null);
+            if (!file.isReused()) {
+                int[] totals = file.getTotals();
+                data.writeInt(totals == null ? -1 : totals.length);
+                if (totals != null) {
+                    for (int total : totals) {
+                        data.writeInt(total);
+                    }
+                }
+                data.writeInt(file.getDetails().size());
+                for (NotificationDetail detail : file.getDetails()) {
+                    data.writeByte(detail.getType().ordinal());
+                    data.writeByte(detail.getSeverity().ordinal());
+                    writeString(data, detail.getRule(), strings);
+                    writeString(data, detail.getFile(), strings);
+                    data.writeInt(detail.getLine());
+                    data.writeInt(detail.getColumn());
+                    writeString(data, detail.getRawMessage(), strings);
+                    writeString(data, detail.getLegacyMessage(), strings);
+                }
+                long[] dropped = file.getDropped();
+                data.writeInt(dropped == null ? 0 : dropped.length);
+                if (dropped != null) {
+                    for (long fingerprint : dropped) {
+                        data.writeLong(fingerprint);
+                    }
+                }
+            }
+        }
+        data.writeByte(END);
+        data.flush();
+        gzip.finish();
+    }
+
+    /**
+     * Read the report files.
+     *
+     * @param in the stream
+     * @return the report files
+     * @throws IOException if the stream is not valid
+     */
+    public static ReportIndex read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new GZIPInputStream(in, 8192));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("not a report info stream");
+        }
+        ReportIndex index = new ReportIndex();
+        index.setLimits(readString(data, null));
+        index.setIncludes(readString(data, null));
+        index.setPartialScans(data.readInt());
+        for (int i = data.readInt(); i > 0; i--) {
+            index.getSkipped().add(readString(data, null));
+        }
+        List<String> strings = new ArrayList<>();
+        NotificationType[] types = NotificationType.values();
+        Severity[] severities = Severity.values();
+        for (int kind = data.readByte(); kind != END; kind = data.readByte()) {
+            ReportFile file = new ReportFile(readString(data, null), data.readLong(), data.readLong(),
+                    readString(data, null));
+            if (kind == REUSED) {
+                file.setReused(true);
+            } else {
+                int totalCount = data.readInt();
+                if (totalCount >= 0) {
+                    int[] totals = new int[totalCount];
+                    for (int i = 0; i < totalCount; i++) {
+                        totals[i] = data.readInt();
+                    }
+                    file.setTotals(totals);
+                }
+                int size = data.readInt();
+                List<NotificationDetail> list = file.getDetails();
+                for (int i = 0; i < size; i++) {
+                    NotificationType type = types[data.readByte()];
+                    Severity severity = severities[data.readByte()];
+                    String rule = readString(data, strings);
+                    String source = readString(data, strings);
+                    int line = data.readInt();
+                    int column = data.readInt();
+                    String rawMessage = readString(data, strings);
+                    String message = readString(data, strings);
+                    list.add(message == null
+                            ? new NotificationDetail(type, severity, rule, source, line, column, rawMessage)
+                            : new NotificationDetail(type, message));
+                }
+                int droppedCount = data.readInt();
+                if (droppedCount > 0) {
+                    long[] dropped = new long[droppedCount];
+                    for (int i = 0; i < droppedCount; i++) {
+                        dropped[i] = data.readLong();
+                    }
+                    file.setDropped(dropped);
+                }
+            }
+            index.getFiles().add(file);
+        }
+        return index;
+    }
+
+    /**
+     * Write a string. With a dictionary, a string already written is
+     * replaced by its index.
+     */
+    private static void writeString(DataOutputStream data, String value, Map<String, Integer> strings) throws IOException {
+        if (value == null) {
+            data.writeInt(NULL);
+            return;
+        }
+        if (strings != null) {
+            Integer id = strings.get(value);
+            if (id != null) {
+                data.writeInt(id);
+                return;
+            }
+            strings.put(value, strings.size());
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(NEW);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data, List<String> strings) throws IOException {
+        int id = data.readInt();
+        if (id == NULL) {
+            return null;
+        } else if (id != NEW) {
+            return strings.get(id);
+        }
+        byte[] bytes = new byte[data.readInt()];
+        data.readFully(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        if (strings != null) {
+            strings.add(value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import jenkins.MasterToSlaveFileCallable;
+import org.jenkinsci.plugins.reportinfo.model.ReportFile;
+import org.jenkinsci.plugins.reportinfo.model.ReportIndex;
+
+/**
+ * Scan and parse the reports on the node of the workspace. Only the compact
+ * {@link ReportStream} is sent back to the controller.
+ *
+ * @author Gael COLIN
+ */
+public class ScanCallable extends MasterToSlaveFileCallable<ScanMetrics> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ScanOptions options;
+    private final HashMap<String, ReportFile> previous;
+    private final TaskListener listener;
+    private final OutputStream out;
+
+    /**
+     * Create the scan.
+     *
+     * @param options the settings of the scan
+     * @param previous the fingerprints of the report files of the previous
+     * scan
+     * @param listener the build listener
+     * @param out the stream receiving the {@link ReportStream}, usually a
+     * {@link hudson.remoting.RemoteOutputStream}
+     */
+    public ScanCallable(ScanOptions options, HashMap<String, ReportFile> previous, TaskListener listener,
+            OutputStream out) {
+        this.options = options;
+        this.previous = previous;
+        this.listener = listener;
+        this.out = out;
+    }
+
+    @Override
+    public ScanMetrics invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
+        ReportIndex index = new ReportIndex();
+        AllNotificationBuilder builder = new AllNotificationBuilder(index, f.toPath(), options, listener.getLogger());
+        builder.setPrevious(previous);
+        builder.start();
+        ScanMetrics metrics = builder.getMetrics();
+        listener.getLogger().println(metrics.getFiles() + " file(s) visited in "
+                + metrics.getDirectories() + " folder(s)");
+        try (OutputStream bout = new BufferedOutputStream(out, 64 * 1024)) {
+            ReportStream.write(index, bout);
+            // the flush of a remote stream waits for the controller
+            bout.flush();
+        }
+        return metrics;
+    }
+}
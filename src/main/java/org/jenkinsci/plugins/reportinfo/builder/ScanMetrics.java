@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+
+/**
+ * The measures of a scan on the node of the workspace.
+ *
+ * @author Gael COLIN
+ */
+public class ScanMetrics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long walkMillis;
+    private int directories;
+    private int files;
+    private int matched;
+    private int reused;
+    private long bytesParsed;
+    private long issues;
+    /**
+     * The budget that stopped the walk, null if the walk is complete.
+     */
+    private String stopped;
+    private int skipped;
+    /**
+     * The time spent in each parser by type ordinal, in nanoseconds. The
+     * parsers may run in parallel.
+     */
+    private final AtomicLongArray parseNanos = new AtomicLongArray(NotificationType.values().length);
+
+    public long getWalkMillis() {
+        return walkMillis;
+    }
+
+    public void setWalkMillis(long walkMillis) {
+        this.walkMillis = walkMillis;
+    }
+
+    /**
+     * @return the number of directories walked
+     */
+    public int getDirectories() {
+        return directories;
+    }
+
+    public void setDirectories(int directories) {
+        this.directories = directories;
+    }
+
+    /**
+     * @return the number of files seen by the walk
+     */
+    public int getFiles() {
+        return files;
+    }
+
+    public void setFiles(int files) {
+        this.files = files;
+    }
+
+    /**
+     * @return the number of report files, parsed or reused
+     */
+    public int getMatched() {
+        return matched;
+    }
+
+    public void setMatched(int matched) {
+        this.matched = matched;
+    }
+
+    public int getReused() {
+        return reused;
+    }
+
+    public void setReused(int reused) {
+        this.reused = reused;
+    }
+
+    public long getBytesParsed() {
+        return bytesParsed;
+    }
+
+    /**
+     * @return the number of issues found in the parsed files, including the
+     * issues not kept because of the limits
+     */
+    public long getIssues() {
+        return issues;
+    }
+
+    /**
+     * Record the parsing of a report, from any thread.
+     *
+     * @param type the type of the report
+     * @param nanos the time spent in the parser
+     * @param bytes the size of the report
+     * @param count the number of issues found
+     */
+    void addParse(NotificationType type, long nanos, long bytes, long count) {
+        parseNanos.addAndGet(type.ordinal(), nanos);
+        synchronized (this) {
+            bytesParsed += bytes;
+            issues += count;
+        }
+    }
+
+    /**
+     * @param type the type of report
+     * @return the time spent in the parser of this type, in milliseconds
+     */
+    public long getParseMillis(NotificationType type) {
+        return parseNanos.get(type.ordinal()) / 1000000L;
+    }
+
+    /**
+     * @return the budget that stopped the walk, null if the walk is complete
+     */
+    public String getStopped() {
+        return stopped;
+    }
+
+    public void setStopped(String stopped) {
+        this.stopped = stopped;
+    }
+
+    /**
+     * @return the number of reports not parsed because they are too large
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    /**
+     * @return the budgets exceeded by the scan, null if the scan is complete
+     */
+    public String getTruncated() {
+        if (skipped == 0) {
+            return stopped;
+        }
+        String oversized = skipped + " report(s) over the size budget skipped";
+        return stopped == null ? oversized : stopped + ", " + oversized;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+
+/**
+ * The settings of a scan, sent to the node of the workspace.
+ *
+ * @author Gael COLIN
+ */
+public class ScanOptions implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String excludeFolders = "";
+    private int threads = 1;
+    private int queueSize = 100;
+    private int[] limits;
+    private boolean bySeverity;
+    private ArrayList<String> locations;
+    private final EnumMap<NotificationType, String> includes = new EnumMap<>(NotificationType.class);
+    private boolean detectReports;
+    private int partialScans;
+    private long maxMillis;
+    private int maxFiles;
+    private long maxReportBytes;
+
+    public String getExcludeFolders() {
+        return excludeFolders;
+    }
+
+    /**
+     * @param excludeFolders the folders to exclude, separated by comma
+     */
+    public void setExcludeFolders(String excludeFolders) {
+        this.excludeFolders = excludeFolders == null ? "" : excludeFolders;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads the number of threads parsing the reports, 1 or less
+     * parses them in the walker
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @param queueSize the number of reports waiting for a parser thread, at
+     * least 1
+     */
+    public void setQueueSize(int queueSize) {
+        this.queueSize = Math.max(1, queueSize);
+    }
+
+    public int[] getLimits() {
+        return limits;
+    }
+
+    public boolean isBySeverity() {
+        return bySeverity;
+    }
+
+    /**
+     * Limit the number of details kept for each type.
+     *
+     * @param limits the maximum number of details by type ordinal, 0 or less
+     * for no limit, null for no limits
+     * @param bySeverity keep the most severe details instead of the first ones
+     */
+    public void setLimits(int[] limits, boolean bySeverity) {
+        this.limits = limits;
+        this.bySeverity = bySeverity;
+    }
+
+    /**
+     * @param type the type of report
+     * @return the patterns of the reports or null for the default ones
+     */
+    public String getIncludes(NotificationType type) {
+        return includes.get(type);
+    }
+
+    /**
+     * @param type the type of report
+     * @param patterns the Ant-style patterns of the reports separated by
+     * comma, null or empty for the default ones
+     */
+    public void setIncludes(NotificationType type, String patterns) {
+        if (patterns == null || patterns.trim().isEmpty()) {
+            includes.remove(type);
+        } else {
+            includes.put(type, patterns.trim());
+        }
+    }
+
+    /**
+     * @return a description of the patterns, to detect a change between two
+     * scans
+     */
+    public String getIncludesSignature() {
+        return (includes.isEmpty() ? "" : includes.toString()) + (detectReports ? " detect" : "");
+    }
+
+    public boolean isDetectReports() {
+        return detectReports;
+    }
+
+    /**
+     * @param detectReports detect the XML reports not matching the patterns
+     * from their root element
+     */
+    public void setDetectReports(boolean detectReports) {
+        this.detectReports = detectReports;
+    }
+
+    /**
+     * @return the directories to scan instead of the whole workspace, or null
+     */
+    public ArrayList<String> getLocations() {
+        return locations;
+    }
+
+    public int getPartialScans() {
+        return partialScans;
+    }
+
+    /**
+     * Scan only the directories where the reports were found by the previous
+     * scans. The whole workspace is scanned if no report is found there.
+     *
+     * @param locations the directories relative to the workspace, null to
+     * scan the whole workspace
+     * @param partialScans the number of partial scans since the last full one
+     */
+    public void setLocations(ArrayList<String> locations, int partialScans) {
+        this.locations = locations;
+        this.partialScans = partialScans;
+    }
+
+    /**
+     * @return a description of the limits, to detect a change between two
+     * scans
+     */
+    public String getLimitsSignature() {
+        return limits == null ? "" : Arrays.toString(limits) + (bySeverity ? " by severity" : "");
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * @param maxMillis the time after which the walk stops, 0 for no limit
+     */
+    public void setMaxMillis(long maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    /**
+     * @param maxFiles the number of files after which the walk stops, 0 for no
+     * limit
+     */
+    public void setMaxFiles(int maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    public long getMaxReportBytes() {
+        return maxReportBytes;
+    }
+
+    /**
+     * @param maxReportBytes the size of the largest report parsed, as read
+     * from the disk, 0 for no limit
+     */
+    public void setMaxReportBytes(long maxReportBytes) {
+        this.maxReportBytes = maxReportBytes;
+    }
+}
@@ -0,0 +1,517 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
+
+/**
+ * Byte level reader of the Surefire reports.
+ *
+ * <p>
+ * Only the tags are read. The content of <code>system-out</code>,
+ * <code>system-err</code>, <code>failure</code> and <code>error</code> (the
+ * output and the stack traces) is skipped without being decoded, and only
+ * the attributes of the test cases and of their failures and errors are
+ * decoded, so the allocation depends on the number of failures and not on the
+ * size of the file. The content is either a buffer or a stream read in a fixed
+ * window.</p>
+ *
+ * @author Gael COLIN
+ */
+final class SurefireReader {
+
+    private static final byte[] TESTSUITE = ascii("testsuite");
+    private static final byte[] TESTCASE = ascii("testcase");
+    private static final byte[] FAILURE = ascii("failure");
+    private static final byte[] ERROR = ascii("error");
+    private static final byte[] SKIPPED = ascii("skipped");
+    private static final byte[] SYSTEM_OUT = ascii("system-out");
+    private static final byte[] SYSTEM_ERR = ascii("system-err");
+    private static final byte[] CLASSNAME = ascii("classname");
+    private static final byte[] NAME = ascii("name");
+    private static final byte[] MESSAGE = ascii("message");
+    private static final byte[] TYPE = ascii("type");
+    private static final byte[] ENCODING = ascii("encoding");
+    private static final byte[] COMMENT = ascii("<!--");
+    private static final byte[] CDATA = ascii("<![CDATA[");
+    private static final byte[] XML_DECLARATION = ascii("<?xml");
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private Charset charset = StandardCharsets.UTF_8;
+
+    /**
+     * Read a content held in a buffer.
+     *
+     * @param content the whole content
+     */
+    SurefireReader(ByteBuffer content) {
+        this.channel = null;
+        this.buffer = content;
+    }
+
+    /**
+     * Read a stream in a window.
+     *
+     * @param in the stream, not closed
+     * @param window the empty buffer used as window
+     */
+    SurefireReader(InputStream in, ByteBuffer window) {
+        this.channel = Channels.newChannel(in);
+        window.clear().limit(0);
+        this.buffer = window;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Check the encoding of the report, from the first bytes.
+     *
+     * @return false if the encoding is not compatible with ASCII, the report
+     * must be read by an XML parser
+     * @throws IOException if the report cannot be read
+     */
+    boolean prepare() throws IOException {
+        ensure(XmlUtils.PROLOGUE_SIZE);
+        int b0 = peek(0);
+        int b1 = peek(1);
+        if (b0 == 0 || b1 == 0 || b0 == 0xfe || b0 == 0xff) {
+            // UTF-16 or UTF-32
+            return false;
+        }
+        if (startsWith(XML_DECLARATION)) {
+            int end = indexOf((byte) '>', 0);
+            if (end > 0) {
+                String encoding = attribute(0, end, ENCODING);
+                if (encoding != null) {
+                    try {
+                        charset = Charset.forName(encoding);
+                    } catch (IllegalArgumentException ex) {
+                        return false;
+                    }
+                    if (!Arrays.equals(XML_DECLARATION, "<?xml".getBytes(charset))) {
+                        // the markup is not ASCII in this encoding
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read the failures and errors of the test cases.
+     *
+     * @param jn the notifications receiving the details
+     * @param builder the builder
+     * @throws IOException if the report cannot be read
+     */
+    void read(JobNotification jn, AllNotificationBuilder builder) throws IOException {
+        int depth = 0;
+        boolean root = false;
+        boolean testcase = false;
+        String classname = null;
+        String name = null;
+        while (skipTo((byte) '<')) {
+            int next = peek(1);
+            if (next == '?') {
+                skipPast(ascii("?>"));
+                continue;
+            }
+            if (next == '!') {
+                if (startsWith(COMMENT)) {
+                    skipPast(ascii("-->"));
+                } else if (startsWith(CDATA)) {
+                    skipPast(ascii("]]>"));
+                } else {
+                    skipDeclaration();
+                }
+                continue;
+            }
+            if (next == '/') {
+                depth--;
+                if (depth == 1) {
+                    testcase = false;
+                }
+                skipPast(ascii(">"));
+                continue;
+            }
+            int end = tagEnd();
+            if (end < 0) {
+                return;
+            }
+            boolean empty = peek(end - 1) == '/';
+            depth++;
+            if (depth == 1) {
+                root = isElement(TESTSUITE);
+            } else if (depth == 2 && root && isElement(TESTCASE)) {
+                testcase = !empty;
+                classname = builder.intern(attribute(1, end, CLASSNAME));
+                name = attribute(1, end, NAME);
+            } else if (depth == 3 && testcase && (isElement(FAILURE) || isElement(ERROR))) {
+                String message = attribute(1, end, MESSAGE);
+                if (message == null) {
+                    message = attribute(1, end, TYPE);
+                }
+                if (jn.offer(NotificationType.TEST, Severity.HIGH)) {
+                    jn.getList().add(new NotificationDetail(NotificationType.TEST, Severity.HIGH,
+                            name, classname, 0, 0, message));
+                } else {
+                    jn.drop(NotificationType.TEST, name, classname, message);
+                }
+            }
+            byte[] skipped = null;
+            if (!empty) {
+                if (isElement(SYSTEM_OUT)) {
+                    skipped = SYSTEM_OUT;
+                } else if (isElement(SYSTEM_ERR)) {
+                    skipped = SYSTEM_ERR;
+                } else if (depth == 3 && isElement(FAILURE)) {
+                    skipped = FAILURE;
+                } else if (depth == 3 && isElement(ERROR)) {
+                    skipped = ERROR;
+                } else if (depth == 3 && isElement(SKIPPED)) {
+                    skipped = SKIPPED;
+                }
+            }
+            advance(end + 1);
+            if (empty) {
+                depth--;
+            } else if (skipped != null) {
+                skipContent(skipped);
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Skip the content of an element made of text, up to its end tag.
+     */
+    private void skipContent(byte[] element) throws IOException {
+        while (skipTo((byte) '<')) {
+            if (startsWith(CDATA)) {
+                skipPast(ascii("]]>"));
+            } else if (startsWith(COMMENT)) {
+                skipPast(ascii("-->"));
+            } else if (peek(1) == '/' && matchesAt(2, element) && isNameEnd(peek(2 + element.length))) {
+                skipPast(ascii(">"));
+                return;
+            } else {
+                advance(1);
+            }
+        }
+    }
+
+    /**
+     * Skip a DOCTYPE, with its internal subset.
+     */
+    private void skipDeclaration() throws IOException {
+        int brackets = 0;
+        for (int i = 2;; i++) {
+            int b = peek(i);
+            if (b == -1) {
+                advance(i);
+                return;
+            } else if (b == '[') {
+                brackets++;
+            } else if (b == ']') {
+                brackets--;
+            } else if (b == '>' && brackets <= 0) {
+                advance(i + 1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the offset of the '&gt;' ending the tag at the position, -1 at
+     * the end of the content
+     */
+    private int tagEnd() throws IOException {
+        byte quote = 0;
+        for (int i = 1;; i++) {
+            int b = peek(i);
+            if (b == -1) {
+                return -1;
+            } else if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = (byte) b;
+            } else if (b == '>') {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * @return true if the tag at the position is the element
+     */
+    private boolean isElement(byte[] element) throws IOException {
+        return matchesAt(1, element) && isNameEnd(peek(1 + element.length));
+    }
+
+    private static boolean isNameEnd(int b) {
+        return b == '>' || b == '/' || b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * Get the value of an attribute of the tag at the position.
+     *
+     * @param from the offset of the element name
+     * @param end the offset of the end of the tag
+     * @param attribute the name of the attribute
+     * @return the decoded value or null if the tag has no such attribute
+     */
+    private String attribute(int from, int end, byte[] attribute) throws IOException {
+        int i = from;
+        // skip the element name
+        while (i < end && !isNameEnd(peek(i))) {
+            i++;
+        }
+        while (i < end) {
+            while (i < end && isNameEnd(peek(i))) {
+                i++;
+            }
+            int nameStart = i;
+            while (i < end && peek(i) != '=' && !isNameEnd(peek(i))) {
+                i++;
+            }
+            int nameEnd = i;
+            while (i < end && peek(i) != '"' && peek(i) != '\'') {
+                i++;
+            }
+            if (i >= end) {
+                return null;
+            }
+            int quote = peek(i);
+            int valueStart = ++i;
+            while (i < end && peek(i) != quote) {
+                i++;
+            }
+            if (nameEnd - nameStart == attribute.length && matchesAt(nameStart, attribute)) {
+                return decode(valueStart, i);
+            }
+            i++;
+        }
+        return null;
+    }
+
+    /**
+     * Decode an attribute value: charset, normalization of the white spaces
+     * and references.
+     */
+    private String decode(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(buffer.position() + from + i);
+        }
+        String value = new String(bytes, charset);
+        StringBuilder result = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '&' || c == '\t' || c == '\n' || c == '\r') {
+                result = new StringBuilder(value.length());
+                result.append(value, 0, i);
+                unescape(value, i, result);
+                break;
+            }
+        }
+        return result == null ? value : result.toString();
+    }
+
+    private static void unescape(String value, int from, StringBuilder result) {
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int semi;
+            if (c == '\t' || c == '\n' || c == '\r') {
+                result.append(' ');
+                // a line break \r\n is a single space
+                if (c == '\r' && i + 1 < value.length() && value.charAt(i + 1) == '\n') {
+                    i++;
+                }
+            } else if (c == '&' && (semi = value.indexOf(';', i)) > i) {
+                String entity = value.substring(i + 1, semi);
+                String replacement = entity(entity);
+                if (replacement == null) {
+                    result.append(c);
+                } else {
+                    result.append(replacement);
+                    i = semi;
+                }
+            } else {
+                result.append(c);
+            }
+        }
+    }
+
+    private static String entity(String entity) {
+        switch (entity) {
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "amp":
+                return "&";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            default:
+                if (entity.length() > 1 && entity.charAt(0) == '#') {
+                    try {
+                        int code = entity.charAt(1) == 'x'
+                                ? Integer.parseInt(entity.substring(2), 16)
+                                : Integer.parseInt(entity.substring(1));
+                        return new String(Character.toChars(code));
+                    } catch (IllegalArgumentException ex) {
+                        return null;
+                    }
+                }
+                return null;
+        }
+    }
+
+    // buffer management
+
+    /**
+     * Make the bytes from the position to position + count available, or as
+     * many as possible at the end of the stream.
+     */
+    private void ensure(int count) throws IOException {
+        if (channel == null || buffer.remaining() >= count) {
+            return;
+        }
+        buffer.compact();
+        if (buffer.capacity() < count) {
+            // a tag larger than the window
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(count, buffer.capacity() * 2));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        while (buffer.position() < count) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * @return the byte at an offset from the position, -1 after the end
+     */
+    private int peek(int offset) throws IOException {
+        if (buffer.remaining() <= offset) {
+            ensure(offset + 1);
+            if (buffer.remaining() <= offset) {
+                return -1;
+            }
+        }
+        return buffer.get(buffer.position() + offset) & 0xff;
+    }
+
+    private void advance(int count) throws IOException {
+        if (buffer.remaining() < count) {
+            ensure(count);
+        }
+        buffer.position(buffer.position() + Math.min(count, buffer.remaining()));
+    }
+
+    private boolean matchesAt(int offset, byte[] bytes) throws IOException {
+        for (int i = 0; i < bytes.length; i++) {
+            if (peek(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(byte[] bytes) throws IOException {
+        return matchesAt(0, bytes);
+    }
+
+    private int indexOf(byte b, int from) throws IOException {
+        for (int i = from;; i++) {
+            int value = peek(i);
+            if (value == -1) {
+                return -1;
+            } else if (value == b) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Move to the next occurrence of a byte.
+     *
+     * @return false at the end of the content
+     */
+    private boolean skipTo(byte b) throws IOException {
+        while (true) {
+            int limit = buffer.limit();
+            for (int i = buffer.position(); i < limit; i++) {
+                if (buffer.get(i) == b) {
+                    buffer.position(i);
+                    return true;
+                }
+            }
+            buffer.position(limit);
+            if (channel == null) {
+                return false;
+            }
+            ensure(1);
+            if (!buffer.hasRemaining()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Move after the next occurrence of a sequence of bytes.
+     */
+    private void skipPast(byte[] bytes) throws IOException {
+        while (skipTo(bytes[0])) {
+            if (startsWith(bytes)) {
+                advance(bytes.length);
+                return;
+            }
+            advance(1);
+        }
+    }
+}
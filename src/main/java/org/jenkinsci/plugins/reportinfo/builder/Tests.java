@@ -23,62 +23,124 @@
  */
 package org.jenkinsci.plugins.reportinfo.builder;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.regex.Pattern;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.jenkinsci.plugins.reportinfo.model.JobNotification;
 import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
 import org.jenkinsci.plugins.reportinfo.model.NotificationType;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
 
 /**
  * Surefire test reader.
+ *
+ * <p>
+ * The reports are read with {@link SurefireReader} through a window, whatever
+ * their size. The reports in an encoding not compatible with ASCII are read
+ * with the XML parser.</p>
  * 
  * @author Gael COLIN
  */
-public class Tests implements NotificationBuilder {
+public class Tests implements FileNotificationBuilder {
+
+    public static final String DEFAULT_INCLUDES = "**/TEST-*.xml";
+
+    @Override
+    public NotificationType getType() {
+        return NotificationType.TEST;
+    }
 
-    private static final Map<String, List<String>> FILENAMES = Collections.emptyMap();
-    private static final Pattern PATTERN = Pattern.compile("TEST-.*\\.xml");
+    @Override
+    public String getDefaultIncludes() {
+        return DEFAULT_INCLUDES;
+    }
 
     @Override
-    public Map<String, List<String>> getFileNames() {
-        return FILENAMES;
+    public boolean acceptRoot(String element) {
+        return "testsuite".equals(element);
     }
 
     @Override
     public void parse(Path file, JobNotification jn, AllNotificationBuilder builder) {
+        // not mapped: a mapping keeps the file locked on Windows until collected
+        try (InputStream in = Files.newInputStream(file)) {
+            parse(in, jn, builder);
+        } catch (IOException ex) {
+            ex.printStackTrace(builder.logger);
+        }
+    }
+
+    @Override
+    public void parse(InputStream in, JobNotification jn, AllNotificationBuilder builder) {
+        ByteBuffer window = ParserContext.get().getWindow();
+        SurefireReader reader = new SurefireReader(in, window);
         try {
-            Document doc = builder.factory.newDocumentBuilder().parse(file.toFile());
-            XPath xpath = builder.pathFactory.newXPath();
-            NodeList errors = (NodeList) xpath.evaluate("/testsuite/testcase/failure", doc, XPathConstants.NODESET);
-            for (int i = 0; i < errors.getLength(); i++) {
-                Node error = errors.item(i);
-                NamedNodeMap attr = error.getAttributes();
-                NamedNodeMap pattr = error.getParentNode().getAttributes();
-                jn.getList().add(new NotificationDetail(NotificationType.TEST,
-                        attr.getNamedItem("message").getNodeValue()
-                        + " in " + pattr.getNamedItem("classname").getNodeValue() + "." + pattr.getNamedItem("name").getNodeValue()));
+            if (reader.prepare()) {
+                reader.read(jn, builder);
+                return;
             }
-        } catch (XPathExpressionException | IOException | SAXException | ParserConfigurationException ex) {
+        } catch (IOException ex) {
             ex.printStackTrace(builder.logger);
+            return;
         }
+        // the first bytes are in the window
+        byte[] prologue = new byte[window.remaining()];
+        window.get(prologue);
+        parseXml(new SequenceInputStream(new ByteArrayInputStream(prologue), in), jn, builder);
     }
 
-    @Override
-    public boolean accept(String fileName) {
-        return PATTERN.matcher(fileName).matches();
+    void parseXml(InputStream in, final JobNotification jn, final AllNotificationBuilder builder) {
+        try {
+            XmlUtils.read(in, new XmlUtils.Handler() {
+
+                private boolean root;
+                private String classname;
+                private String name;
+                private boolean testcase;
+
+                @Override
+                public void start(XMLStreamReader reader, int depth) {
+                    String element = reader.getLocalName();
+                    if (depth == 1) {
+                        root = "testsuite".equals(element);
+                    } else if (depth == 2 && root && "testcase".equals(element)) {
+                        testcase = true;
+                        classname = builder.intern(XmlUtils.attr(reader, "classname"));
+                        name = XmlUtils.attr(reader, "name");
+                    } else if (depth == 3 && testcase && ("failure".equals(element) || "error".equals(element))) {
+                        String message = XmlUtils.attr(reader, "message");
+                        if (message == null) {
+                            message = XmlUtils.attr(reader, "type");
+                        }
+                        if (jn.offer(NotificationType.TEST, Severity.HIGH)) {
+                            jn.getList().add(new NotificationDetail(NotificationType.TEST, Severity.HIGH,
+                                    name, classname, 0, 0, message));
+                        } else {
+                            jn.drop(NotificationType.TEST, name, classname, message);
+                        }
+                    }
+                }
+
+                @Override
+                public void end(XMLStreamReader reader, int depth) {
+                    if (depth == 2) {
+                        testcase = false;
+                    }
+                }
+
+                @Override
+                public void text(XMLStreamReader reader) {
+                }
+            }, builder);
+        } catch (IOException | XMLStreamException ex) {
+            ex.printStackTrace(builder.logger);
+        }
     }
 
 }
@@ -0,0 +1,242 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Helpers for the streaming XML readers.
+ *
+ * @author Gael COLIN
+ */
+public class XmlUtils {
+
+    /**
+     * The number of bytes read to find the root element.
+     */
+    static final int PROLOGUE_SIZE = 1024;
+
+    private XmlUtils() {
+    }
+
+    /**
+     * Create the factory used by the readers. The DTD are ignored and the
+     * external entities are not resolved.
+     *
+     * @return a new factory
+     */
+    public static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setXMLResolver(new XMLResolver() {
+            @Override
+            public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+        });
+        return factory;
+    }
+
+    /**
+     * Stream a report.
+     *
+     * @param in the content of the report, not closed
+     * @param handler the handler of the XML events
+     * @param builder the builder
+     * @throws IOException if the report cannot be read
+     * @throws XMLStreamException if the report is not a valid XML
+     */
+    public static void read(InputStream in, Handler handler, AllNotificationBuilder builder) throws IOException, XMLStreamException {
+        XMLStreamReader reader = builder.getInputFactory().createXMLStreamReader(in);
+        try {
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamReader.START_ELEMENT) {
+                    depth++;
+                    handler.start(reader, depth);
+                } else if (event == XMLStreamReader.END_ELEMENT) {
+                    handler.end(reader, depth);
+                    depth--;
+                } else if (event == XMLStreamReader.CHARACTERS || event == XMLStreamReader.CDATA
+                        || event == XMLStreamReader.SPACE) {
+                    handler.text(reader);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Get the root element of a file by reading only its first bytes.
+     *
+     * @param file the file
+     * @return the name of the root element without prefix, or null if it is
+     * not in the first bytes
+     * @throws IOException if the file cannot be read
+     */
+    public static String rootElement(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return rootElement(in);
+        }
+    }
+
+    /**
+     * Get the root element of a report by reading only its first bytes.
+     *
+     * @param in the content of the report, not closed
+     * @return the name of the root element without prefix, or null if it is
+     * not in the first bytes
+     * @throws IOException if the report cannot be read
+     */
+    public static String rootElement(InputStream in) throws IOException {
+        byte[] buffer = new byte[PROLOGUE_SIZE];
+        int length = 0;
+        for (int n = 0; n != -1 && length < buffer.length; n = in.read(buffer, length, buffer.length - length)) {
+            length += n;
+        }
+        String text;
+        if (length >= 2 && buffer[0] == (byte) 0xfe && buffer[1] == (byte) 0xff) {
+            text = new String(buffer, 0, length, StandardCharsets.UTF_16BE);
+        } else if (length >= 2 && buffer[0] == (byte) 0xff && buffer[1] == (byte) 0xfe) {
+            text = new String(buffer, 0, length, StandardCharsets.UTF_16LE);
+        } else {
+            // the markup is ASCII in the other encodings
+            text = new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+        }
+        return rootElement(text);
+    }
+
+    /**
+     * Find the root element after the declaration, processing instructions,
+     * comments and document type.
+     *
+     * @param text the beginning of the document
+     * @return the name of the root element without prefix, or null
+     */
+    static String rootElement(String text) {
+        int i = text.indexOf('<');
+        while (i >= 0 && i + 1 < text.length()) {
+            int end;
+            if (text.startsWith("<?", i)) {
+                end = text.indexOf("?>", i);
+            } else if (text.startsWith("<!--", i)) {
+                end = text.indexOf("-->", i);
+            } else if (text.startsWith("<!", i)) {
+                end = text.indexOf('>', i);
+                int subset = text.indexOf('[', i);
+                if (subset >= 0 && (end < 0 || subset < end)) {
+                    end = text.indexOf("]", subset);
+                    end = end < 0 ? -1 : text.indexOf('>', end);
+                }
+            } else {
+                int start = i + 1;
+                end = start;
+                while (end < text.length() && !Character.isWhitespace(text.charAt(end))
+                        && text.charAt(end) != '>' && text.charAt(end) != '/') {
+                    end++;
+                }
+                if (end == text.length() || end == start) {
+                    return null;
+                }
+                String name = text.substring(start, end);
+                return name.substring(name.indexOf(':') + 1);
+            }
+            if (end < 0) {
+                return null;
+            }
+            i = text.indexOf('<', end);
+        }
+        return null;
+    }
+
+    /**
+     * Get an attribute of the current element.
+     *
+     * @param reader the reader
+     * @param name the attribute name
+     * @return the value or null
+     */
+    public static String attr(XMLStreamReader reader, String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    /**
+     * Parse a line or column attribute.
+     *
+     * @param value the attribute value, may be null
+     * @return the number or 0 if missing or invalid
+     */
+    public static int parseInt(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Receive the XML events of a report.
+     */
+    public interface Handler {
+
+        /**
+         * A start element.
+         *
+         * @param reader the reader positioned on the element
+         * @param depth the depth of the element, 1 for the root
+         */
+        void start(XMLStreamReader reader, int depth);
+
+        /**
+         * An end element.
+         *
+         * @param reader the reader positioned on the element
+         * @param depth the depth of the element, 1 for the root
+         */
+        void end(XMLStreamReader reader, int depth);
+
+        /**
+         * Some text.
+         *
+         * @param reader the reader positioned on the text
+         */
+        void text(XMLStreamReader reader);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stable fingerprints of the issues, to compare the issues of two builds.
+ *
+ * <p>
+ * The fingerprint is the 64-bit FNV-1a hash of the type, the rule, the file
+ * and the message of the issue. The line is not part of it and the numbers of
+ * the message are ignored, so that an issue keeps its fingerprint when the
+ * code around it changes. Identical issues share a fingerprint, the arrays
+ * are sorted multisets.</p>
+ *
+ * @author Gael COLIN
+ */
+public final class Fingerprints {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Fingerprints() {
+    }
+
+    /**
+     * Compute the fingerprint of an issue.
+     *
+     * @param detail the issue
+     * @return the fingerprint
+     */
+    public static long of(NotificationDetail detail) {
+        String message = detail.getLegacyMessage() == null ? detail.getRawMessage() : detail.getLegacyMessage();
+        return of(detail.getType(), detail.getRule(), detail.getFile(), message);
+    }
+
+    /**
+     * Compute the fingerprint of an issue without creating its detail.
+     *
+     * @param type the type of the issue
+     * @param rule the rule, test or bug type
+     * @param file the source file, class or test class
+     * @param message the message of the tool
+     * @return the fingerprint, the same as the one of the detail
+     */
+    public static long of(NotificationType type, String rule, String file, String message) {
+        long hash = FNV_OFFSET;
+        hash = hash(hash, type == null ? null : type.name(), false);
+        hash = hash(hash, rule, false);
+        hash = hash(hash, file, false);
+        return hash(hash, message, true);
+    }
+
+    /**
+     * Compute the sorted fingerprints of a list of issues.
+     *
+     * @param details the issues
+     * @return the fingerprints, sorted
+     */
+    public static long[] of(List<NotificationDetail> details) {
+        long[] fingerprints = new long[details.size()];
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = of(details.get(i));
+        }
+        Arrays.sort(fingerprints);
+        return fingerprints;
+    }
+
+    /**
+     * Hash a string followed by a separator. With <code>normalize</code>,
+     * the runs of digits are hashed as a single '0' and the runs of white
+     * spaces as a single space.
+     */
+    private static long hash(long hash, String value, boolean normalize) {
+        if (value != null) {
+            char previous = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (normalize) {
+                    if (c >= '0' && c <= '9') {
+                        c = '0';
+                    } else if (Character.isWhitespace(c)) {
+                        c = ' ';
+                    }
+                    if ((c == '0' || c == ' ') && c == previous) {
+                        continue;
+                    }
+                    previous = c;
+                }
+                hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+            }
+        }
+        // separator, so that ("ab", "c") and ("a", "bc") differ
+        return (hash ^ 0xff) * FNV_PRIME;
+    }
+
+    /**
+     * Get the fingerprints of a sorted multiset that are not in another one,
+     * with a linear merge.
+     *
+     * @param current the sorted fingerprints
+     * @param previous the sorted fingerprints to remove
+     * @return the sorted fingerprints of current not matched in previous
+     */
+    public static long[] subtract(long[] current, long[] previous) {
+        long[] result = new long[current.length];
+        int n = 0;
+        int j = 0;
+        for (long fingerprint : current) {
+            while (j < previous.length && previous[j] < fingerprint) {
+                j++;
+            }
+            if (j < previous.length && previous[j] == fingerprint) {
+                j++;
+            } else {
+                result[n++] = fingerprint;
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+}
@@ -24,12 +24,20 @@
 package org.jenkinsci.plugins.reportinfo.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlSeeAlso;
+import javax.xml.bind.annotation.XmlTransient;
 
 /**
  *
@@ -43,11 +51,322 @@ public class JobNotification {
     @XmlElement(name = "elt")
     private List<NotificationDetail> list = new ArrayList<>();
     private long lastModified;
+    /**
+     * The number of issues found for each type, including the issues not kept
+     * because of the limits. Null if all the issues are in the list.
+     */
+    @XmlElement(name = "total")
+    private int[] totals;
+    /**
+     * The maximum number of details of each type, 0 or less for no limit.
+     */
+    @XmlTransient
+    private int[] limits;
+    @XmlTransient
+    private boolean bySeverity;
+    /**
+     * The number of details accepted by type and severity.
+     */
+    @XmlTransient
+    private int[][] kept;
+    @XmlTransient
+    private boolean evicted;
+    /**
+     * The number of details accepted by type by all the parts of a scan, null
+     * if the limits apply to this list only.
+     */
+    @XmlTransient
+    private AtomicIntegerArray shared;
+    /**
+     * The sorted fingerprints of the details not found in the previous build,
+     * null if there is no previous build to compare with.
+     */
+    @XmlTransient
+    private long[] newFingerprints;
+    /**
+     * The details of the list matching the new fingerprints, computed on
+     * demand.
+     */
+    @XmlTransient
+    private volatile Set<NotificationDetail> newDetails;
+    /**
+     * The fingerprints of the issues counted but not kept in the list because
+     * of the limits, not sorted.
+     */
+    @XmlTransient
+    private long[] dropped = new long[0];
+    @XmlTransient
+    private int droppedCount;
+    /**
+     * The budgets exceeded by the scan, null if the details are complete.
+     */
+    @XmlTransient
+    private String truncated;
 
     public List<NotificationDetail> getList() {
         return list;
     }
 
+    /**
+     * Limit the number of details kept for each type. The parsers call
+     * {@link #offer} before creating a detail.
+     *
+     * @param limits the maximum number of details by type ordinal, 0 or less
+     * for no limit
+     * @param bySeverity keep the most severe details instead of the first ones
+     */
+    public void setLimits(int[] limits, boolean bySeverity) {
+        this.limits = limits;
+        this.bySeverity = bySeverity;
+        kept = new int[NotificationType.values().length][Severity.values().length];
+    }
+
+    /**
+     * Apply the limits to all the lists sharing the same counts, so that the
+     * parts of a scan keep the first details of the whole scan. The counts
+     * are not shared when keeping the most severe details, a part cannot
+     * evict the details of another one.
+     *
+     * @param accepted the number of details accepted by type ordinal,
+     * updated by all the parts
+     */
+    public void shareLimits(AtomicIntegerArray accepted) {
+        if (!bySeverity) {
+            shared = accepted;
+        }
+    }
+
+    /**
+     * Give back to the shared counts the details accepted by this list, when
+     * it is discarded.
+     */
+    public void releaseLimits() {
+        if (shared == null) {
+            return;
+        }
+        for (int i = 0; i < kept.length; i++) {
+            int size = 0;
+            for (int count : kept[i]) {
+                size += count;
+            }
+            shared.addAndGet(i, -size);
+            Arrays.fill(kept[i], 0);
+        }
+    }
+
+    /**
+     * Count an issue and tell if its detail should be added to the list.
+     *
+     * @param type the type of the issue
+     * @param severity the severity of the issue
+     * @return true if the detail must be added
+     */
+    public boolean offer(NotificationType type, Severity severity) {
+        if (totals == null) {
+            totals = new int[NotificationType.values().length];
+        }
+        totals[type.ordinal()]++;
+        return accept(type, severity);
+    }
+
+    /**
+     * Tell if a detail should be added to the list, without counting it.
+     *
+     * @param type the type of the issue
+     * @param severity the severity of the issue
+     * @return true if the detail must be added
+     */
+    public boolean accept(NotificationType type, Severity severity) {
+        if (limits == null) {
+            return true;
+        }
+        int limit = type.ordinal() < limits.length ? limits[type.ordinal()] : 0;
+        int[] counts = kept[type.ordinal()];
+        if (shared != null) {
+            if (limit > 0 && !reserve(type.ordinal(), limit)) {
+                return false;
+            }
+            counts[severity.ordinal()]++;
+            return true;
+        }
+        int size = 0;
+        for (int count : counts) {
+            size += count;
+        }
+        if (limit <= 0 || size < limit) {
+            counts[severity.ordinal()]++;
+            return true;
+        }
+        if (bySeverity) {
+            // replace a less severe detail, removed by trim()
+            for (int i = counts.length - 1; i > severity.ordinal(); i--) {
+                if (counts[i] > 0) {
+                    counts[i]--;
+                    counts[severity.ordinal()]++;
+                    evicted = true;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean reserve(int type, int limit) {
+        while (true) {
+            int accepted = shared.get(type);
+            if (accepted >= limit) {
+                return false;
+            }
+            if (shared.compareAndSet(type, accepted, accepted + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Record an issue refused by {@link #offer}, so that it is still compared
+     * with the issues of the previous build.
+     *
+     * @param type the type of the issue
+     * @param rule the rule, test or bug type
+     * @param file the source file, class or test class
+     * @param message the message of the tool
+     */
+    public void drop(NotificationType type, String rule, String file, String message) {
+        drop(Fingerprints.of(type, rule, file, message));
+    }
+
+    /**
+     * Record the fingerprint of an issue not kept in the list.
+     *
+     * @param fingerprint the fingerprint of the issue
+     */
+    public void drop(long fingerprint) {
+        if (droppedCount == dropped.length) {
+            dropped = Arrays.copyOf(dropped, Math.max(16, droppedCount * 2));
+        }
+        dropped[droppedCount++] = fingerprint;
+    }
+
+    /**
+     * Record the fingerprints of some issues not kept in the list.
+     *
+     * @param fingerprints the fingerprints of the issues, or null
+     */
+    public void drop(long[] fingerprints) {
+        if (fingerprints != null) {
+            for (long fingerprint : fingerprints) {
+                drop(fingerprint);
+            }
+        }
+    }
+
+    /**
+     * @return the fingerprints of the issues not kept in the list because of
+     * the limits, or null if there is none
+     */
+    public long[] getDropped() {
+        return droppedCount == 0 ? null : Arrays.copyOf(dropped, droppedCount);
+    }
+
+    /**
+     * Get the fingerprints of all the issues, the details of the list and the
+     * issues not kept because of the limits.
+     *
+     * @return the sorted fingerprints
+     */
+    public long[] getFingerprints() {
+        long[] fingerprints = Arrays.copyOf(dropped, droppedCount + list.size());
+        for (int i = 0; i < list.size(); i++) {
+            fingerprints[droppedCount + i] = Fingerprints.of(list.get(i));
+        }
+        Arrays.sort(fingerprints);
+        return fingerprints;
+    }
+
+    /**
+     * Remove the less severe details replaced by more severe ones.
+     */
+    public void trim() {
+        if (!evicted) {
+            return;
+        }
+        int[][] remaining = new int[kept.length][];
+        for (int i = 0; i < kept.length; i++) {
+            remaining[i] = kept[i].clone();
+        }
+        List<NotificationDetail> trimmed = new ArrayList<>();
+        for (NotificationDetail detail : list) {
+            int[] counts = remaining[detail.getType().ordinal()];
+            if (counts[detail.getSeverity().ordinal()] > 0) {
+                counts[detail.getSeverity().ordinal()]--;
+                trimmed.add(detail);
+            } else {
+                drop(Fingerprints.of(detail));
+            }
+        }
+        list = trimmed;
+        evicted = false;
+    }
+
+    /**
+     * Add some issues to the totals.
+     *
+     * @param other the totals by type ordinal, or null
+     * @param details the details, counted if the totals are null
+     */
+    public void addTotals(int[] other, List<NotificationDetail> details) {
+        if (totals == null) {
+            totals = new int[NotificationType.values().length];
+        }
+        if (other == null) {
+            for (NotificationDetail detail : details) {
+                totals[detail.getType().ordinal()]++;
+            }
+        } else {
+            for (int i = 0; i < other.length && i < totals.length; i++) {
+                totals[i] += other[i];
+            }
+        }
+    }
+
+    /**
+     * @return the number of issues by type ordinal, or null if all the issues
+     * are in the list
+     */
+    public int[] getTotals() {
+        return totals;
+    }
+
+    public void setTotals(int[] totals) {
+        this.totals = totals;
+    }
+
+    /**
+     * Get the number of issues of each type, including the issues not kept.
+     *
+     * @return the totals by type ordinal
+     */
+    public int[] getTotalCounts() {
+        if (totals != null) {
+            return totals;
+        }
+        return getCounts();
+    }
+
+    /**
+     * Get the number of details of each type in the list.
+     *
+     * @return the counts by type ordinal
+     */
+    public int[] getCounts() {
+        int[] counts = new int[NotificationType.values().length];
+        for (NotificationDetail detail : list) {
+            counts[detail.getType().ordinal()]++;
+        }
+        return counts;
+    }
+
     public void setLastModified(long lastModified) {
         this.lastModified = lastModified;
     }
@@ -55,4 +374,59 @@ public class JobNotification {
     public long getLastModified() {
         return lastModified;
     }
+
+    public long[] getNewFingerprints() {
+        return newFingerprints;
+    }
+
+    public void setNewFingerprints(long[] newFingerprints) {
+        this.newFingerprints = newFingerprints;
+        newDetails = null;
+    }
+
+    public String getTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(String truncated) {
+        this.truncated = truncated;
+    }
+
+    /**
+     * Tell if a detail was not found in the previous build. The fingerprints
+     * are a multiset: when an issue is found twice and only once in the
+     * previous build, only one of its details is new.
+     *
+     * @param detail a detail of the list
+     * @return true if the detail is new, false if it is not or if there is no
+     * previous build
+     */
+    public boolean isNew(NotificationDetail detail) {
+        if (newFingerprints == null) {
+            return false;
+        }
+        Set<NotificationDetail> details = newDetails;
+        if (details == null) {
+            Map<Long, Integer> remaining = new HashMap<>();
+            for (long fingerprint : newFingerprints) {
+                Integer count = remaining.get(fingerprint);
+                remaining.put(fingerprint, count == null ? 1 : count + 1);
+            }
+            details = Collections.newSetFromMap(new IdentityHashMap<NotificationDetail, Boolean>());
+            for (NotificationDetail item : list) {
+                Long fingerprint = Fingerprints.of(item);
+                Integer count = remaining.get(fingerprint);
+                if (count != null) {
+                    details.add(item);
+                    if (count == 1) {
+                        remaining.remove(fingerprint);
+                    } else {
+                        remaining.put(fingerprint, count - 1);
+                    }
+                }
+            }
+            newDetails = details;
+        }
+        return details.contains(detail);
+    }
 }
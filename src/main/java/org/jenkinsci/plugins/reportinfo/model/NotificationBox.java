@@ -23,9 +23,6 @@
  */
 package org.jenkinsci.plugins.reportinfo.model;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  *
  * @author Gael COLIN
@@ -33,7 +30,15 @@ import java.util.List;
 public class NotificationBox {
 
     private NotificationType type;
-    private final List<NotificationDetail> details = new ArrayList<>();
+    /**
+     * The number of details, the details are loaded by page.
+     */
+    private int count;
+    /**
+     * The number of issues, including the issues not kept because of the
+     * limits.
+     */
+    private int total;
 
     public NotificationBox(NotificationType type) {
         this.type = type;
@@ -43,8 +48,17 @@ public class NotificationBox {
         return type;
     }
 
-    public List<NotificationDetail> getDetails() {
-        return details;
+    public int getCount() {
+        return count;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void add(int count, int total) {
+        this.count += count;
+        this.total += total;
     }
 
 }
@@ -29,6 +29,9 @@ import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlTransient;
 
 /**
+ * An issue found in a report. The message displayed in the view is built
+ * from the structured fields when it is needed, see
+ * {@link NotificationType#format}.
  *
  * @author Gael COLIN
  */
@@ -39,7 +42,29 @@ public class NotificationDetail {
     private String job;
     @XmlAttribute
     private NotificationType type;
+    /**
+     * The formatted message, only for the details stored by the previous
+     * versions.
+     */
     private String message;
+    @XmlAttribute
+    private Severity severity;
+    /**
+     * The rule, check or test name.
+     */
+    @XmlAttribute
+    private String rule;
+    /**
+     * The source file, class or test class.
+     */
+    @XmlAttribute
+    private String file;
+    @XmlAttribute
+    private int line;
+    @XmlAttribute
+    private int column;
+    @XmlAttribute(name = "raw")
+    private String rawMessage;
 
     public NotificationDetail() {
     }
@@ -49,6 +74,28 @@ public class NotificationDetail {
         this.message = message;
     }
 
+    /**
+     * Create a detail.
+     *
+     * @param type the tool
+     * @param severity the severity
+     * @param rule the rule, should be interned
+     * @param file the file, should be interned
+     * @param line the line or 0 if unknown
+     * @param column the column or 0 if unknown
+     * @param rawMessage the message of the tool
+     */
+    public NotificationDetail(NotificationType type, Severity severity, String rule, String file, int line, int column,
+            String rawMessage) {
+        this.type = type;
+        this.severity = severity;
+        this.rule = rule;
+        this.file = file;
+        this.line = line;
+        this.column = column;
+        this.rawMessage = rawMessage;
+    }
+
     public void setJob(String job) {
         this.job = job;
     }
@@ -61,8 +108,48 @@ public class NotificationDetail {
         return type;
     }
 
+    /**
+     * Get the message displayed in the view.
+     *
+     * @return the message
+     */
     public String getMessage() {
+        if (message != null || type == null) {
+            return message;
+        }
+        return type.format(this);
+    }
+
+    /**
+     * @return the message stored by the previous versions, null for the new
+     * details
+     */
+    public String getLegacyMessage() {
         return message;
     }
 
+    public Severity getSeverity() {
+        return severity == null ? Severity.NORMAL : severity;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public String getRawMessage() {
+        return rawMessage;
+    }
+
 }
@@ -28,8 +28,25 @@ package org.jenkinsci.plugins.reportinfo.model;
  * @author Gael COLIN
  */
 public enum NotificationType {
-    TEST("/16x16/error.png", "Tests"),
-    FINDBUG("/16x16/error.png", "Findbugs"),
+    TEST("/16x16/error.png", "Tests") {
+        @Override
+        public String format(NotificationDetail detail) {
+            return detail.getRawMessage() + " in " + detail.getFile() + "." + detail.getRule();
+        }
+    },
+    FINDBUG("/16x16/error.png", "Findbugs") {
+        @Override
+        public String format(NotificationDetail detail) {
+            StringBuilder message = new StringBuilder().append(detail.getRawMessage());
+            if (detail.getFile() != null) {
+                message.append(" in ").append(detail.getFile());
+            }
+            if (detail.getLine() > 0) {
+                message.append(" at [line ").append(detail.getLine()).append(']');
+            }
+            return message.toString();
+        }
+    },
     PMD("/16x16/error.png", "PMD"),
     CHECKSTYLE("/16x16/warning.png", "Checkstyle");
 
@@ -48,4 +65,17 @@ public enum NotificationType {
     public String getTitle() {
         return title;
     }
+
+    /**
+     * Build the message displayed in the view from the structured fields.
+     *
+     * @param detail the detail
+     * @return the message
+     */
+    public String format(NotificationDetail detail) {
+        return detail.getRawMessage()
+                + " at [line " + detail.getLine()
+                + (detail.getColumn() > 0 ? ":" + detail.getColumn() : "")
+                + "] in " + detail.getFile();
+    }
 }
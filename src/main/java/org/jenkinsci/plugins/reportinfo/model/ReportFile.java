@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlTransient;
+
+/**
+ * A report file and the notifications it produced.
+ *
+ * @author Gael COLIN
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ReportFile implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The path relative to the scanned directory, with / separators.
+     */
+    @XmlAttribute
+    private String path;
+    @XmlAttribute
+    private long size;
+    @XmlAttribute
+    private long lastModified;
+    @XmlAttribute
+    private String hash;
+    @XmlElement(name = "elt")
+    private List<NotificationDetail> details = new ArrayList<>();
+    /**
+     * The number of issues of each type, or null if all the issues are in the
+     * details.
+     */
+    @XmlElement(name = "total")
+    private int[] totals;
+    /**
+     * The fingerprints of the issues not in the details because of the
+     * limits, or null.
+     */
+    @XmlElement(name = "dropped")
+    private long[] dropped;
+    /**
+     * The file is unchanged since the previous scan and was not parsed.
+     */
+    @XmlTransient
+    private boolean reused;
+
+    public ReportFile() {
+    }
+
+    public ReportFile(String path, long size, long lastModified, String hash) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.hash = hash;
+    }
+
+    /**
+     * Copy the file without the notifications.
+     *
+     * @return the copy
+     */
+    public ReportFile fingerprint() {
+        return new ReportFile(path, size, lastModified, hash);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public List<NotificationDetail> getDetails() {
+        return details;
+    }
+
+    public void setDetails(List<NotificationDetail> details) {
+        this.details = details;
+    }
+
+    public int[] getTotals() {
+        return totals;
+    }
+
+    public void setTotals(int[] totals) {
+        this.totals = totals;
+    }
+
+    public long[] getDropped() {
+        return dropped;
+    }
+
+    public void setDropped(long[] dropped) {
+        this.dropped = dropped;
+    }
+
+    public boolean isReused() {
+        return reused;
+    }
+
+    public void setReused(boolean reused) {
+        this.reused = reused;
+    }
+}
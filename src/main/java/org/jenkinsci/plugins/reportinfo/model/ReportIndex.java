@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSeeAlso;
+
+/**
+ * The report files found by the last scan of a job, with their notifications.
+ *
+ * @author Gael COLIN
+ */
+@XmlRootElement
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlSeeAlso(ReportFile.class)
+public class ReportIndex {
+
+    @XmlElement(name = "file")
+    private List<ReportFile> files = new ArrayList<>();
+    /**
+     * The limits of the scan, the files are not reused if the limits change.
+     */
+    @XmlAttribute
+    private String limits;
+    /**
+     * The patterns of the scan, the known locations are not used if the
+     * patterns change.
+     */
+    @XmlAttribute
+    private String includes;
+    /**
+     * The number of scans limited to the known report locations since the
+     * last scan of the whole workspace.
+     */
+    @XmlAttribute
+    private int partialScans;
+    /**
+     * The files of the reports not parsed because of the size budget, the
+     * archive of an entry.
+     */
+    @XmlElement(name = "skipped")
+    private List<String> skipped = new ArrayList<>();
+
+    public List<ReportFile> getFiles() {
+        return files;
+    }
+
+    public String getLimits() {
+        return limits;
+    }
+
+    public void setLimits(String limits) {
+        this.limits = limits;
+    }
+
+    public String getIncludes() {
+        return includes;
+    }
+
+    public void setIncludes(String includes) {
+        this.includes = includes;
+    }
+
+    public int getPartialScans() {
+        return partialScans;
+    }
+
+    public void setPartialScans(int partialScans) {
+        this.partialScans = partialScans;
+    }
+
+    public List<String> getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Get the directories containing the report files, parsed or skipped.
+     *
+     * @return the sorted paths relative to the workspace, "" for the
+     * workspace itself
+     */
+    public TreeSet<String> getLocations() {
+        TreeSet<String> locations = new TreeSet<>();
+        for (ReportFile file : files) {
+            int sep = file.getPath().lastIndexOf('/');
+            locations.add(sep < 0 ? "" : file.getPath().substring(0, sep));
+        }
+        for (String file : skipped) {
+            int sep = file.lastIndexOf('/');
+            locations.add(sep < 0 ? "" : file.substring(0, sep));
+        }
+        return locations;
+    }
+
+    /**
+     * Get the fingerprints of the files, without the notifications.
+     *
+     * @return the fingerprints by path
+     */
+    public HashMap<String, ReportFile> getFingerprints() {
+        HashMap<String, ReportFile> fingerprints = new HashMap<>();
+        for (ReportFile file : files) {
+            fingerprints.put(file.getPath(), file.fingerprint());
+        }
+        return fingerprints;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.model;
+
+/**
+ * The severity of a notification, normalized across the tools.
+ *
+ * @author Gael COLIN
+ */
+public enum Severity {
+    HIGH,
+    NORMAL,
+    LOW;
+
+    /**
+     * Convert a numeric priority where 1 is the most important.
+     *
+     * @param priority the priority attribute, may be null
+     * @param high the last priority considered as high
+     * @param normal the last priority considered as normal
+     * @return the severity, NORMAL if the priority is not a number
+     */
+    public static Severity fromPriority(String priority, int high, int normal) {
+        if (priority == null) {
+            return NORMAL;
+        }
+        try {
+            int value = Integer.parseInt(priority.trim());
+            if (value <= high) {
+                return HIGH;
+            }
+            return value <= normal ? NORMAL : LOW;
+        } catch (NumberFormatException ex) {
+            return NORMAL;
+        }
+    }
+}
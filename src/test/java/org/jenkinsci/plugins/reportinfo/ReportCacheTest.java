@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test the eviction and the invalidation of the cached reportinfo files.
+ *
+ * @author Gael COLIN
+ */
+public class ReportCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    /**
+     * Count the loads and return a notification with one detail.
+     */
+    private static class CountingLoader implements ReportCache.Loader {
+
+        private int loads;
+
+        @Override
+        public JobNotification load(File file) {
+            loads++;
+            return sample();
+        }
+    }
+
+    private static JobNotification sample() {
+        JobNotification jn = new JobNotification();
+        jn.getList().add(new NotificationDetail(NotificationType.TEST, "a.ATest.test expected 1"));
+        return jn;
+    }
+
+    private File file(String name, String content, long lastModified) throws IOException {
+        File file = tmp.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(lastModified);
+        return file;
+    }
+
+    @Test
+    public void hit() throws IOException {
+        ReportCache cache = new ReportCache(Long.MAX_VALUE);
+        File file = file("a", "1", 1000000L);
+        CountingLoader loader = new CountingLoader();
+        JobNotification first = cache.get(file, "a", loader);
+        assertSame(first, cache.get(file, "b", loader));
+        assertEquals(1, loader.loads);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals("a", first.getList().get(0).getJob());
+        assertEquals(ReportCache.weigh(first), cache.getWeight());
+    }
+
+    @Test
+    public void invalidatedByModification() throws IOException {
+        ReportCache cache = new ReportCache(Long.MAX_VALUE);
+        File file = file("a", "1", 1000000L);
+        CountingLoader loader = new CountingLoader();
+        cache.get(file, "a", loader);
+
+        // same length, other modification time
+        file.setLastModified(2000000L);
+        cache.get(file, "a", loader);
+        assertEquals(2, loader.loads);
+
+        // same modification time, other length
+        Files.write(file.toPath(), "12".getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(2000000L);
+        cache.get(file, "a", loader);
+        assertEquals(3, loader.loads);
+
+        cache.get(file, "a", loader);
+        assertEquals(3, loader.loads);
+        assertEquals(1, cache.getSize());
+        assertEquals(ReportCache.weigh(sample()), cache.getWeight());
+    }
+
+    @Test
+    public void invalidatedByDeletion() throws IOException {
+        ReportCache cache = new ReportCache(Long.MAX_VALUE);
+        File file = file("a", "1", 1000000L);
+        CountingLoader loader = new CountingLoader();
+        cache.get(file, "a", loader);
+        file.delete();
+        assertNull(cache.get(file, "a", loader));
+        assertEquals(1, loader.loads);
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void invalidate() throws IOException {
+        ReportCache cache = new ReportCache(Long.MAX_VALUE);
+        File file = file("a", "1", 1000000L);
+        CountingLoader loader = new CountingLoader();
+        cache.get(file, "a", loader);
+        cache.invalidate(file);
+        assertEquals(0, cache.getWeight());
+        cache.get(file, "a", loader);
+        assertEquals(2, loader.loads);
+    }
+
+    @Test
+    public void evictionByWeight() throws IOException {
+        long weight = ReportCache.weigh(sample());
+        ReportCache cache = new ReportCache(2 * weight);
+        File a = file("a", "1", 1000000L);
+        File b = file("b", "1", 1000000L);
+        File c = file("c", "1", 1000000L);
+        CountingLoader loader = new CountingLoader();
+        cache.get(a, "a", loader);
+        cache.get(b, "b", loader);
+        assertEquals(2, cache.getSize());
+        assertEquals(0, cache.getEvictionCount());
+
+        // a is now more recently used than b, which is evicted
+        cache.get(a, "a", loader);
+        cache.get(c, "c", loader);
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2 * weight, cache.getWeight());
+        assertEquals(3, loader.loads);
+        cache.get(a, "a", loader);
+        cache.get(c, "c", loader);
+        assertEquals(3, loader.loads);
+        cache.get(b, "b", loader);
+        assertEquals(4, loader.loads);
+    }
+
+    @Test
+    public void entryHeavierThanTheLimit() throws IOException {
+        ReportCache cache = new ReportCache(1);
+        File a = file("a", "1", 1000000L);
+        File b = file("b", "1", 1000000L);
+        CountingLoader loader = new CountingLoader();
+        JobNotification notification = cache.get(a, "a", loader);
+        // the entry being returned is kept
+        assertEquals(1, cache.getSize());
+        assertSame(notification, cache.get(a, "a", loader));
+        cache.get(b, "b", loader);
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+    }
+}
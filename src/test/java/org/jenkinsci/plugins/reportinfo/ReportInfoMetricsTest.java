@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import javax.management.ObjectName;
+import org.jenkinsci.plugins.reportinfo.builder.ScanMetrics;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Test the registration of the metrics and the times by job.
+ *
+ * @author Gael COLIN
+ */
+public class ReportInfoMetricsTest {
+
+    private static final ReportInfoAction ACTION = new ReportInfoAction(new ScanMetrics(), 1, 2, 3, 4, 0, 0, 0);
+
+    @Test
+    public void registerAgain() throws Exception {
+        ObjectName name = new ObjectName("org.jenkinsci.plugins.reportinfo:type=ReportInfoMetrics");
+        ReportInfoMetrics.register();
+        ReportInfoMetrics.register();
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        ReportInfoMetrics.unregister();
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        ReportInfoMetrics.unregister();
+    }
+
+    @Test
+    public void deletedJobs() {
+        ReportInfoMetrics metrics = ReportInfoMetrics.get();
+        metrics.record("deleted", ACTION);
+        metrics.record("deletedFolder/a", ACTION);
+        metrics.record("deletedFolder/b/c", ACTION);
+        metrics.record("deletedFolderSibling", ACTION);
+        metrics.remove("deleted");
+        metrics.remove("deletedFolder");
+        Map<String, Long> jobs = metrics.getJobMillis();
+        assertNull(jobs.get("deleted"));
+        assertNull(jobs.get("deletedFolder/a"));
+        assertNull(jobs.get("deletedFolder/b/c"));
+        assertEquals(Long.valueOf(10), jobs.get("deletedFolderSibling"));
+    }
+
+    @Test
+    public void renamedJobs() {
+        ReportInfoMetrics metrics = ReportInfoMetrics.get();
+        metrics.record("renamed", ACTION);
+        metrics.record("renamedFolder/a", ACTION);
+        metrics.record("movedFolder/a", ACTION);
+        metrics.rename("renamed", "renamed2");
+        metrics.rename("renamedFolder", "movedFolder");
+        Map<String, Long> jobs = metrics.getJobMillis();
+        assertNull(jobs.get("renamed"));
+        assertEquals(Long.valueOf(10), jobs.get("renamed2"));
+        assertNull(jobs.get("renamedFolder/a"));
+        // the times are added to a job with the same name
+        assertEquals(Long.valueOf(20), jobs.get("movedFolder/a"));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import org.jenkinsci.plugins.reportinfo.model.Fingerprints;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ * Test the pages of details of the view.
+ *
+ * @author Gael COLIN
+ */
+public class ReportInfoTest {
+
+    private final TreeMap<String, JobNotification> jobs = new TreeMap<>();
+    private final ReportInfo.Source source = new ReportInfo.Source() {
+        @Override
+        public JobNotification get(String job) {
+            return jobs.get(job);
+        }
+    };
+
+    /**
+     * Add a job with PMD details named <code>job/a</code>, <code>job/b</code>...
+     * and a test failure between them. The names have no digits, ignored by
+     * the fingerprints.
+     */
+    private JobNotification job(String job, int details) {
+        JobNotification jn = new JobNotification();
+        for (int i = 0; i < details; i++) {
+            jn.getList().add(new NotificationDetail(NotificationType.PMD, Severity.NORMAL, "Rule", "A.java", i + 1, 0,
+                    job + "/" + (char) ('a' + i)));
+            jn.getList().add(new NotificationDetail(NotificationType.TEST, job + ".test " + i));
+        }
+        jobs.put(job, jn);
+        return jn;
+    }
+
+    /**
+     * The messages of a page.
+     */
+    private static class Page implements SearchIndex.Collector {
+
+        private final List<String> messages = new ArrayList<>();
+        private String next;
+
+        @Override
+        public void collect(JobNotification notification, NotificationDetail detail) {
+            messages.add(detail.getRawMessage());
+        }
+    }
+
+    private Page page(String cursor, int limit, boolean newOnly) {
+        Page page = new Page();
+        page.next = ReportInfo.page(jobs.navigableKeySet(), source, NotificationType.PMD, cursor, limit, newOnly,
+                page);
+        return page;
+    }
+
+    @Test
+    public void pages() {
+        job("b", 3);
+        job("a", 2);
+        job("c", 0);
+        job("d", 1);
+        jobs.put("e", null);
+
+        Page page = page(null, 2, false);
+        assertEquals(Arrays.asList("a/a", "a/b"), page.messages);
+        // the next detail is the first one of b
+        assertEquals("0:b", page.next);
+        page = page(page.next, 2, false);
+        assertEquals(Arrays.asList("b/a", "b/b"), page.messages);
+        assertEquals("4:b", page.next);
+        page = page(page.next, 2, false);
+        assertEquals(Arrays.asList("b/c", "d/a"), page.messages);
+        assertNull(page.next);
+
+        page = page("", 10, false);
+        assertEquals(Arrays.asList("a/a", "a/b", "b/a", "b/b", "b/c", "d/a"), page.messages);
+        assertNull(page.next);
+    }
+
+    @Test
+    public void jobsChangedBetweenPages() {
+        job("a", 2);
+        job("c", 3);
+        job("e", 1);
+        Page page = page(null, 3, false);
+        assertEquals(Arrays.asList("a/a", "a/b", "c/a"), page.messages);
+        assertEquals("2:c", page.next);
+
+        // a job before the cursor is not returned, a job after it is
+        job("b", 1);
+        job("d", 1);
+        Page next = page(page.next, 3, false);
+        assertEquals(Arrays.asList("c/b", "c/c", "d/a"), next.messages);
+        assertEquals("0:e", next.next);
+
+        // the job of the cursor is removed, the next page starts at the next job
+        jobs.remove("c");
+        next = page(page.next, 3, false);
+        assertEquals(Arrays.asList("d/a", "e/a"), next.messages);
+        assertNull(next.next);
+    }
+
+    @Test
+    public void newOnly() {
+        JobNotification a = job("a", 3);
+        a.setNewFingerprints(new long[]{Fingerprints.of(a.getList().get(2)), Fingerprints.of(a.getList().get(4))});
+        // no previous build, nothing is new
+        job("b", 2);
+        JobNotification c = job("c", 2);
+        c.setNewFingerprints(new long[]{Fingerprints.of(c.getList().get(0))});
+
+        Page page = page(null, 2, true);
+        assertEquals(Arrays.asList("a/b", "a/c"), page.messages);
+        assertEquals("0:c", page.next);
+        page = page(page.next, 2, true);
+        assertEquals(Arrays.asList("c/a"), page.messages);
+        assertNull(page.next);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void invalidPosition() {
+        page("x:a", 2, false);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void cursorWithoutJob() {
+        page("12", 2, false);
+    }
+}
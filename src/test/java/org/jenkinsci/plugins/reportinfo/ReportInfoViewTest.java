@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import hudson.model.FreeStyleProject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+/**
+ * Test the summary of {@link ReportInfo} patched when a job is written, added
+ * to or removed from the view.
+ *
+ * @author Gael COLIN
+ */
+public class ReportInfoViewTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private static JobNotification failures(int count) {
+        JobNotification jn = new JobNotification();
+        for (int i = 0; i < count; i++) {
+            jn.getList().add(new NotificationDetail(NotificationType.TEST, "a.ATest.test" + i + " failed"));
+        }
+        return jn;
+    }
+
+    private static int total(ReportInfo view) {
+        ViewSummary summary = view.getSummary();
+        return summary.getBoxes().isEmpty() ? 0 : summary.getBoxes().get(0).getTotal();
+    }
+
+    /**
+     * Search the index of the view.
+     *
+     * @return the jobs of the details found
+     */
+    private static List<String> found(ReportInfo view, String query) {
+        final List<String> jobs = new ArrayList<>();
+        view.getIndex().search(query, null, null, null, 10, new SearchIndex.Collector() {
+            @Override
+            public void collect(JobNotification notification, NotificationDetail detail) {
+                jobs.add(detail.getJob());
+            }
+        });
+        return jobs;
+    }
+
+    @Test
+    public void summaryPatched() throws Exception {
+        FreeStyleProject a = j.createFreeStyleProject("a");
+        FreeStyleProject b = j.createFreeStyleProject("b");
+        ReportInfo view = new ReportInfo("reports");
+        j.jenkins.addView(view);
+        view.add(a);
+        assertTrue(view.getSummary().getBoxes().isEmpty());
+        assertTrue(found(view, "test1").isEmpty());
+
+        // write
+        ReportInfo.write(failures(2), a);
+        assertEquals(2, total(view));
+        assertEquals(Collections.singletonList("a"), view.getSummary().getJobs());
+        // not in the view
+        ReportInfo.write(failures(3), b);
+        assertEquals(2, total(view));
+
+        // add
+        view.add(b);
+        assertEquals(5, total(view));
+        assertEquals(Arrays.asList("a", "b"), view.getSummary().getJobs());
+        assertEquals(Arrays.asList("a", "b"), found(view, "test1"));
+
+        // remove
+        view.remove(a);
+        assertEquals(3, total(view));
+        assertEquals(Collections.singletonList("b"), view.getSummary().getJobs());
+        assertEquals(Collections.singletonList("b"), found(view, "test1"));
+        ReportInfo.write(failures(1), a);
+        assertEquals(3, total(view));
+        ReportInfo.write(failures(1), b);
+        assertEquals(1, total(view));
+        assertTrue(found(view, "test1").isEmpty());
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import hudson.model.FreeStyleProject;
+import java.io.InputStream;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+/**
+ * Test {@link ReportPublisher}.
+ *
+ * @author Gael COLIN
+ */
+public class ReportPublisherTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void defaultsOfPreviousVersion() throws Exception {
+        FreeStyleProject project;
+        try (InputStream in = ReportPublisherTest.class.getResourceAsStream("ReportPublisherTest-1.0.xml")) {
+            project = (FreeStyleProject) j.jenkins.createProjectFromXML("previous", in);
+        }
+        ReportPublisher publisher = project.getPublishersList().get(ReportPublisher.class);
+        assertEquals(".git, node_modules", publisher.getExcludeFolders());
+        assertEquals(1, publisher.getThreads());
+        assertEquals(100, publisher.getQueueSize());
+        assertEquals(10, publisher.getFullScanInterval());
+        assertEquals(100, publisher.getHistorySize());
+    }
+}
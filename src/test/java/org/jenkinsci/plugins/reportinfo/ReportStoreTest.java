@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test the binary storage of the notifications.
+ *
+ * @author Gael COLIN
+ */
+public class ReportStoreTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static JobNotification sample() {
+        JobNotification jn = new JobNotification();
+        jn.setLastModified(1234567890123L);
+        jn.getList().add(new NotificationDetail(NotificationType.PMD, Severity.HIGH, "UnusedLocal",
+                "src/A.java", 12, 5, "Avoid unused local été"));
+        jn.getList().add(new NotificationDetail(NotificationType.PMD, Severity.LOW, "UnusedLocal",
+                "src/A.java", 300, 0, null));
+        jn.getList().add(new NotificationDetail(NotificationType.CHECKSTYLE, Severity.NORMAL, null, null, 0, 0, ""));
+        jn.getList().add(new NotificationDetail(NotificationType.TEST, "a.ATest.test expected 1"));
+        int[] totals = new int[NotificationType.values().length];
+        totals[NotificationType.PMD.ordinal()] = 200000;
+        jn.setTotals(totals);
+        return jn;
+    }
+
+    private static JobNotification roundTrip(JobNotification jn) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportStore.write(jn, out);
+        return ReportStore.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        JobNotification jn = sample();
+        JobNotification read = roundTrip(jn);
+        assertEquals(jn.getLastModified(), read.getLastModified());
+        assertEquals(jn.getList().size(), read.getList().size());
+        for (int i = 0; i < jn.getList().size(); i++) {
+            NotificationDetail expected = jn.getList().get(i);
+            NotificationDetail actual = read.getList().get(i);
+            assertEquals(expected.getType(), actual.getType());
+            assertEquals(expected.getSeverity(), actual.getSeverity());
+            assertEquals(expected.getRule(), actual.getRule());
+            assertEquals(expected.getFile(), actual.getFile());
+            assertEquals(expected.getLine(), actual.getLine());
+            assertEquals(expected.getColumn(), actual.getColumn());
+            assertEquals(expected.getRawMessage(), actual.getRawMessage());
+            assertEquals(expected.getLegacyMessage(), actual.getLegacyMessage());
+        }
+        // the totals are at least the number of details
+        assertArrayEquals(new int[]{1, 0, 200000, 1}, read.getTotalCounts());
+        assertArrayEquals(jn.getCounts(), read.getCounts());
+        assertNull(read.getNewFingerprints());
+        assertNull(read.getTruncated());
+    }
+
+    @Test
+    public void comparisonAndTruncation() throws IOException {
+        JobNotification jn = sample();
+        jn.setNewFingerprints(new long[0]);
+        assertArrayEquals(new long[0], roundTrip(jn).getNewFingerprints());
+
+        jn.setNewFingerprints(new long[]{Long.MIN_VALUE, -1, 0, 42, Long.MAX_VALUE});
+        jn.setTruncated("time budget of 60000 ms exceeded");
+        JobNotification read = roundTrip(jn);
+        assertArrayEquals(jn.getNewFingerprints(), read.getNewFingerprints());
+        assertEquals(jn.getTruncated(), read.getTruncated());
+    }
+
+    @Test
+    public void empty() throws IOException {
+        JobNotification read = roundTrip(new JobNotification());
+        assertTrue(read.getList().isEmpty());
+        assertArrayEquals(new int[NotificationType.values().length], read.getTotalCounts());
+    }
+
+    @Test
+    public void rejectOtherFiles() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportStore.write(sample(), out);
+        byte[] bytes = out.toByteArray();
+
+        byte[] otherVersion = bytes.clone();
+        otherVersion[4] = 2;
+        assertInvalid(otherVersion, "unsupported report info version 2");
+        byte[] otherMagic = bytes.clone();
+        otherMagic[0] = '<';
+        assertInvalid(otherMagic, "not a report info file");
+        try {
+            ReportStore.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)));
+            fail("truncated file read");
+        } catch (EOFException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rejectCorruptedFiles() throws IOException {
+        JobNotification jn = new JobNotification();
+        jn.getList().add(new NotificationDetail(NotificationType.PMD, Severity.HIGH, null, null, 0, 0, null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportStore.write(jn, out);
+        byte[] bytes = out.toByteArray();
+        // the detail is written in the last 10 bytes: the type, the severity,
+        // 6 varints and the empty comparison and truncation
+        int detail = bytes.length - 10;
+        assertEquals(NotificationType.PMD.ordinal(), bytes[detail]);
+
+        byte[] type = bytes.clone();
+        type[detail] = (byte) 200;
+        assertInvalid(type, "invalid report info NotificationType 200");
+        byte[] severity = bytes.clone();
+        severity[detail + 1] = (byte) Severity.values().length;
+        assertInvalid(severity, "invalid report info Severity " + Severity.values().length);
+        byte[] string = bytes.clone();
+        string[detail + 2] = 5;
+        assertInvalid(string, "invalid report info string 5");
+    }
+
+    private static void assertInvalid(byte[] bytes, String message) {
+        try {
+            ReportStore.read(new ByteArrayInputStream(bytes));
+            fail(message);
+        } catch (IOException ex) {
+            assertEquals(message, ex.getMessage());
+        }
+    }
+
+    @Test
+    public void varints() throws IOException {
+        int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        for (int value : values) {
+            ReportStore.writeVarint(data, value);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        for (int value : values) {
+            assertEquals(value, ReportStore.readVarint(in));
+        }
+    }
+
+    @Test
+    public void files() throws IOException {
+        File file = new File(tmp.getRoot(), ReportStore.FILENAME);
+        ReportStore.write(sample(), file);
+        assertEquals(sample().getList().size(), ReportStore.read(file).getList().size());
+        assertFalse(ReportStore.getTempFile(file).exists());
+
+        File fingerprints = new File(tmp.getRoot(), ReportStore.FINGERPRINTS_FILENAME);
+        long[] values = {-5, 3, 3, 99};
+        ReportStore.writeFingerprints(values, fingerprints);
+        assertArrayEquals(values, ReportStore.readFingerprints(fingerprints));
+    }
+}
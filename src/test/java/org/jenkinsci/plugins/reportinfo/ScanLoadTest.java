@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+/**
+ * Build twice a project scanning a generated workspace with
+ * {@link ReportPublisher} and compare the time of the scan, the peak heap used
+ * during the build and the number of files and folders visited with the
+ * baselines of <code>ScanLoadTest.properties</code>.
+ *
+ * <p>
+ * Run with <code>mvn test -Pload-test</code>. The workspace is configured with
+ * the system properties <code>reportinfo.load.modules</code>,
+ * <code>depth</code>, <code>noise</code> and <code>issues</code>; the
+ * baselines are only compared for the configurations present in the file. The
+ * results are written in <code>target/load-test.properties</code>, to update
+ * the baselines.</p>
+ *
+ * @author Gael COLIN
+ */
+public class ScanLoadTest {
+
+    private static final String PREFIX = "reportinfo.load.";
+    private static final int MODULES = Integer.getInteger(PREFIX + "modules", 200);
+    private static final int DEPTH = Integer.getInteger(PREFIX + "depth", 3);
+    private static final int NOISE = Integer.getInteger(PREFIX + "noise", 200);
+    private static final int ISSUES = Integer.getInteger(PREFIX + "issues", 500);
+    /**
+     * The allowed slowdown of the time and memory compared to the baselines.
+     */
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty(PREFIX + "tolerance", "1.5"));
+    private static final Pattern VISITED = Pattern.compile("(\\d+) file\\(s\\) visited in (\\d+) folder\\(s\\)");
+    private static final Pattern REUSED = Pattern.compile("(\\d+) report file\\(s\\) reused, (\\d+) parsed");
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void scanWorkspace() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+        int reports = new WorkspaceGenerator(MODULES, DEPTH, NOISE, ISSUES).generate(workspace.toPath());
+
+        FreeStyleProject project = j.createFreeStyleProject();
+        project.setCustomWorkspace(workspace.getAbsolutePath());
+        project.getPublishersList().add(new ReportPublisher(".git, node_modules, bower_components, .nb-gradle, "
+                + ".idea, .gradle, .settings, work, bin, apidocs, classes, test-classes, javadoc"));
+
+        String configuration = MODULES + "x" + DEPTH + "x" + NOISE + "x" + ISSUES;
+        Properties results = new Properties();
+        // the first build parses all the reports, the second one reuses them
+        Run cold = build(project);
+        assertEquals(reports, cold.parsed);
+        cold.save(results, configuration + ".cold.");
+        Run warm = build(project);
+        assertEquals(reports, warm.reused);
+        warm.save(results, configuration + ".warm.");
+
+        File output = new File(System.getProperty("buildDirectory", "target"), "load-test.properties");
+        try (OutputStream out = new FileOutputStream(output)) {
+            results.store(out, "ScanLoadTest results");
+        }
+
+        Properties baselines = new Properties();
+        try (InputStream in = ScanLoadTest.class.getResourceAsStream("ScanLoadTest.properties")) {
+            baselines.load(in);
+        }
+        for (String name : results.stringPropertyNames()) {
+            String baseline = baselines.getProperty(name);
+            if (baseline == null) {
+                continue;
+            }
+            long actual = Long.parseLong(results.getProperty(name));
+            long expected = Long.parseLong(baseline);
+            // the walk is deterministic, the time and memory are not
+            long max = name.endsWith(".visited") ? expected : (long) (expected * TOLERANCE);
+            assertTrue(name + " regressed: " + actual + " > " + max + " (baseline " + expected + ")", actual <= max);
+        }
+    }
+
+    private Run build(FreeStyleProject project) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long used = memory.getHeapMemoryUsage().getUsed();
+        HeapSampler sampler = new HeapSampler(memory);
+        sampler.start();
+        FreeStyleBuild build;
+        try {
+            build = j.buildAndAssertSuccess(project);
+        } finally {
+            sampler.interrupt();
+            sampler.join();
+        }
+        Run run = new Run();
+        run.millis = build.getAction(ReportInfoAction.class).getTotalMillis();
+        // the heap used by the build, above the heap used by Jenkins
+        run.peakHeap = sampler.peak - used;
+        String text = JenkinsRule.getLog(build);
+        Matcher visited = VISITED.matcher(text);
+        assertTrue(text, visited.find());
+        run.visited = Long.parseLong(visited.group(1)) + Long.parseLong(visited.group(2));
+        Matcher reused = REUSED.matcher(text);
+        assertTrue(text, reused.find());
+        run.reused = Integer.parseInt(reused.group(1));
+        run.parsed = Integer.parseInt(reused.group(2));
+        return run;
+    }
+
+    /**
+     * Sample the used heap every millisecond until interrupted.
+     */
+    private static class HeapSampler extends Thread {
+
+        private final MemoryMXBean memory;
+        private volatile long peak;
+
+        HeapSampler(MemoryMXBean memory) {
+            this.memory = memory;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException ex) {
+                    peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The measures of a scan.
+     */
+    private static class Run {
+
+        private long millis;
+        private long peakHeap;
+        private long visited;
+        private int reused;
+        private int parsed;
+
+        void save(Properties results, String prefix) {
+            results.setProperty(prefix + "millis", Long.toString(millis));
+            results.setProperty(prefix + "peakHeapKb", Long.toString(peakHeap / 1024));
+            results.setProperty(prefix + "visited", Long.toString(visited));
+        }
+    }
+}
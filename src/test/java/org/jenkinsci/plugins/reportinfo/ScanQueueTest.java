@@ -0,0 +1,192 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Test the order and the limits of {@link ScanQueue}.
+ *
+ * @author Gael COLIN
+ */
+public class ScanQueueTest {
+
+    /**
+     * The builds scanned, in the order the scans started.
+     */
+    private final List<String> scanned = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * A scan blocked until released.
+     */
+    private class Scan extends ScanQueue.Task {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final boolean fail;
+
+        Scan(String job, String build, boolean fail) {
+            super(job, build);
+            this.fail = fail;
+        }
+
+        Scan(String job, String build) {
+            this(job, build, false);
+        }
+
+        @Override
+        protected void run() throws IOException, InterruptedException {
+            scanned.add(getBuild());
+            started.countDown();
+            try {
+                release.await();
+                if (fail) {
+                    throw new IOException("scan of " + getBuild() + " failed");
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        void awaitStarted() throws InterruptedException {
+            assertTrue(getBuild() + " not started", started.await(10, TimeUnit.SECONDS));
+        }
+
+        void finish() throws InterruptedException {
+            release.countDown();
+            assertTrue(getBuild() + " not finished", done.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static List<String> builds(List<ScanQueue.Task> tasks) {
+        List<String> builds = new ArrayList<>();
+        for (ScanQueue.Task task : tasks) {
+            builds.add(task.getBuild());
+        }
+        return builds;
+    }
+
+    private static void awaitIdle(ScanQueue queue) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while (!queue.getRunning().isEmpty() || !queue.getWaiting().isEmpty()) {
+            assertTrue("scans still queued", System.currentTimeMillis() < end);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void supersedeWaitingScan() throws Exception {
+        ScanQueue queue = new ScanQueue(1);
+        Scan a1 = new Scan("a", "a #1");
+        queue.submit(a1);
+        a1.awaitStarted();
+
+        Scan b1 = new Scan("b", "b #1");
+        Scan c1 = new Scan("c", "c #1");
+        Scan b2 = new Scan("b", "b #2");
+        assertEquals(1, queue.submit(b1));
+        assertEquals(2, queue.submit(c1));
+        // the newer scan takes the place of the older one in the queue
+        assertEquals(2, queue.submit(b2));
+        assertEquals(1, queue.getSuperseded());
+        assertEquals(Arrays.asList("b #2", "c #1"), builds(queue.getWaiting()));
+
+        a1.finish();
+        b2.awaitStarted();
+        b2.finish();
+        c1.awaitStarted();
+        c1.finish();
+        awaitIdle(queue);
+        assertEquals(Arrays.asList("a #1", "b #2", "c #1"), scanned);
+        assertEquals(3, queue.getCompleted());
+        assertEquals(0, queue.getFailed());
+    }
+
+    @Test
+    public void waitWhenAllThreadsBusy() throws Exception {
+        ScanQueue queue = new ScanQueue(2);
+        Scan a1 = new Scan("a", "a #1", true);
+        Scan b1 = new Scan("b", "b #1");
+        queue.submit(a1);
+        queue.submit(b1);
+        a1.awaitStarted();
+        b1.awaitStarted();
+
+        // the scans over the limit wait in the order they were queued
+        Scan c1 = new Scan("c", "c #1");
+        Scan d1 = new Scan("d", "d #1");
+        assertEquals(1, queue.submit(c1));
+        assertEquals(2, queue.submit(d1));
+        assertEquals(Arrays.asList("a #1", "b #1"), builds(queue.getRunning()));
+        assertEquals(Arrays.asList("c #1", "d #1"), builds(queue.getWaiting()));
+
+        // a failed scan frees its thread too
+        a1.finish();
+        c1.awaitStarted();
+        assertEquals(Arrays.asList("d #1"), builds(queue.getWaiting()));
+        b1.finish();
+        d1.awaitStarted();
+        c1.finish();
+        d1.finish();
+        awaitIdle(queue);
+        assertEquals(Arrays.asList("a #1", "b #1", "c #1", "d #1"), scanned);
+        assertEquals(3, queue.getCompleted());
+        assertEquals(1, queue.getFailed());
+    }
+
+    @Test
+    public void neverTwoScansOfTheSameJob() throws Exception {
+        ScanQueue queue = new ScanQueue(2);
+        Scan a1 = new Scan("a", "a #1");
+        queue.submit(a1);
+        a1.awaitStarted();
+
+        // a thread is free but the job is being scanned: the scan keeps its
+        // place while the next job starts
+        Scan a2 = new Scan("a", "a #2");
+        Scan b1 = new Scan("b", "b #1");
+        assertEquals(1, queue.submit(a2));
+        queue.submit(b1);
+        b1.awaitStarted();
+        assertEquals(Arrays.asList("a #2"), builds(queue.getWaiting()));
+        b1.finish();
+        assertEquals(Arrays.asList("a #2"), builds(queue.getWaiting()));
+
+        a1.finish();
+        a2.awaitStarted();
+        a2.finish();
+        awaitIdle(queue);
+        assertEquals(Arrays.asList("a #1", "b #1", "a #2"), scanned);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Test the queries and the cursor of {@link SearchIndex}.
+ *
+ * @author Gael COLIN
+ */
+public class SearchIndexTest {
+
+    /**
+     * The messages of a page.
+     */
+    private static class Page implements SearchIndex.Collector {
+
+        private final List<String> messages = new ArrayList<>();
+        private String next;
+
+        @Override
+        public void collect(JobNotification notification, NotificationDetail detail) {
+            messages.add(detail.getRawMessage() == null ? detail.getLegacyMessage() : detail.getRawMessage());
+        }
+    }
+
+    private static NotificationDetail pmd(String rule, String file, String message) {
+        return new NotificationDetail(NotificationType.PMD, Severity.NORMAL, rule, file, 1, 0, message);
+    }
+
+    private static SearchIndex index() {
+        SearchIndex index = new SearchIndex();
+        JobNotification core = new JobNotification();
+        core.getList().add(pmd("UnusedLocalVariable", "src/main/java/a/Parser.java", "Avoid unused x"));
+        core.getList().add(new NotificationDetail(NotificationType.TEST, "a.ParserTest.empty expected null"));
+        core.getList().add(pmd("UnusedPrivateField", "src/main/java/a/Lexer.java", "Avoid unused field y"));
+        core.getList().add(pmd("EmptyCatchBlock", "src/main/java/a/Parser.java", "Avoid empty catch blocks"));
+        index.put("core", core);
+        JobNotification web = new JobNotification();
+        web.getList().add(pmd("UnusedLocalVariable", "src/main/java/b/Parser.java", "Avoid unused z"));
+        web.getList().add(pmd("UnusedLocalVariable", "src/main/java/b/Page.java", "Avoid UNUSED w"));
+        index.put("web", web);
+        index.put("empty", null);
+        return index;
+    }
+
+    private static Page search(SearchIndex index, String query, NotificationType type, String job, String cursor,
+            int limit) {
+        Page page = new Page();
+        page.next = index.search(query, type, job, cursor, limit, page);
+        return page;
+    }
+
+    @Test
+    public void tokenize() {
+        assertEquals(Arrays.asList("src", "main", "java", "a", "parser", "java"),
+                SearchIndex.tokenize("src/main/java/a/Parser.java"));
+        assertEquals(Arrays.asList("été", "x1"), SearchIndex.tokenize("  Été, x1!"));
+        assertTrue(SearchIndex.tokenize(null).isEmpty());
+        assertTrue(SearchIndex.tokenize(" -- ").isEmpty());
+    }
+
+    @Test
+    public void intersection() {
+        SearchIndex index = index();
+        // the tokens of the rule, the file and the message, in any case
+        assertEquals(Arrays.asList("Avoid unused x", "Avoid unused z"),
+                search(index, "unused PARSER", null, null, null, 10).messages);
+        assertEquals(Arrays.asList("Avoid unused x", "Avoid empty catch blocks"),
+                search(index, "a/parser.java", null, null, null, 10).messages);
+        // the job name is a token of its details
+        assertEquals(Arrays.asList("Avoid unused z", "Avoid UNUSED w"),
+                search(index, "web avoid", null, null, null, 10).messages);
+        // a token not indexed, and a token missing from the details of the others
+        assertTrue(search(index, "unused missing", null, null, null, 10).messages.isEmpty());
+        assertTrue(search(index, "lexer catch", null, null, null, 10).messages.isEmpty());
+        // prefixes do not match
+        assertTrue(search(index, "pars", null, null, null, 10).messages.isEmpty());
+    }
+
+    @Test
+    public void filters() {
+        SearchIndex index = index();
+        assertEquals(Arrays.asList("a.ParserTest.empty expected null"),
+                search(index, "", NotificationType.TEST, null, null, 10).messages);
+        assertEquals(Arrays.asList("Avoid unused z", "Avoid UNUSED w"),
+                search(index, "unused", NotificationType.PMD, "web", null, 10).messages);
+        assertEquals(6, search(index, null, null, null, null, 10).messages.size());
+        assertTrue(search(index, "unused", null, "missing", null, 10).messages.isEmpty());
+    }
+
+    @Test
+    public void cursor() {
+        SearchIndex index = index();
+        Page page = search(index, "avoid", null, null, null, 2);
+        assertEquals(Arrays.asList("Avoid unused x", "Avoid unused field y"), page.messages);
+        // the position of the next match in the job
+        assertEquals("3:core", page.next);
+        page = search(index, "avoid", null, null, page.next, 2);
+        assertEquals(Arrays.asList("Avoid empty catch blocks", "Avoid unused z"), page.messages);
+        assertEquals("1:web", page.next);
+        page = search(index, "avoid", null, null, page.next, 2);
+        assertEquals(Arrays.asList("Avoid UNUSED w"), page.messages);
+        assertNull(page.next);
+
+        // the cursor of a job removed or replaced between the pages
+        index.remove("core");
+        page = search(index, "avoid", null, null, "3:core", 2);
+        assertEquals(Arrays.asList("Avoid unused z", "Avoid UNUSED w"), page.messages);
+        JobNotification web = new JobNotification();
+        web.getList().add(pmd("UnusedLocalVariable", "src/main/java/b/Parser.java", "Avoid unused z"));
+        index.put("web", web);
+        page = search(index, "avoid", null, null, "1:web", 2);
+        assertTrue(page.messages.isEmpty());
+        assertNull(page.next);
+        assertFalse(index.contains("core"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void invalidCursor() {
+        search(index(), "avoid", null, null, "x:core", 2);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationBox;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Compare the summaries patched on write, add and remove with the summaries
+ * built from all the jobs.
+ *
+ * @author Gael COLIN
+ */
+public class ViewSummaryTest {
+
+    private static int[] counts(NotificationType type, int details, int total, boolean truncated) {
+        JobNotification jn = new JobNotification();
+        for (int i = 0; i < details; i++) {
+            jn.getList().add(new NotificationDetail(type, "m" + i));
+        }
+        int[] totals = new int[NotificationType.values().length];
+        totals[type.ordinal()] = total;
+        jn.setTotals(totals);
+        if (truncated) {
+            jn.setTruncated("time budget exceeded");
+        }
+        return ViewSummary.countsOf(jn);
+    }
+
+    private static void assertSameSummary(Map<String, int[]> jobs, ViewSummary patched) {
+        ViewSummary built = new ViewSummary(new HashMap<>(jobs));
+        assertEquals(built.getJobs(), patched.getJobs());
+        assertEquals(built.getTruncatedJobs(), patched.getTruncatedJobs());
+        assertEquals(toString(built.getBoxes()), toString(patched.getBoxes()));
+        for (String job : jobs.keySet()) {
+            assertTrue(patched.contains(job));
+        }
+    }
+
+    private static String toString(List<NotificationBox> boxes) {
+        StringBuilder text = new StringBuilder();
+        for (NotificationBox box : boxes) {
+            text.append(box.getType()).append(' ').append(box.getCount()).append('/').append(box.getTotal())
+                    .append(' ');
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void patches() {
+        Map<String, int[]> jobs = new HashMap<>();
+        jobs.put("a", counts(NotificationType.PMD, 2, 5, false));
+        jobs.put("b", counts(NotificationType.TEST, 1, 1, false));
+        jobs.put("empty", ViewSummary.countsOf(null));
+        ViewSummary summary = new ViewSummary(new HashMap<>(jobs));
+        assertEquals(Arrays.asList("a", "b"), summary.getJobs());
+        assertEquals("TEST 1/1 PMD 2/5 ", toString(summary.getBoxes()));
+
+        // a job of the view is written
+        jobs.put("a", counts(NotificationType.PMD, 3, 3, true));
+        summary = summary.with("a", jobs.get("a"));
+        assertSameSummary(jobs, summary);
+        assertEquals(Arrays.asList("a"), summary.getTruncatedJobs());
+
+        // a job is added to the view
+        jobs.put("c", counts(NotificationType.CHECKSTYLE, 4, 4, false));
+        summary = summary.with("c", jobs.get("c"));
+        assertSameSummary(jobs, summary);
+
+        // a job is removed from the view
+        jobs.remove("a");
+        summary = summary.without("a");
+        assertSameSummary(jobs, summary);
+        assertEquals("TEST 1/1 CHECKSTYLE 4/4 ", toString(summary.getBoxes()));
+        assertTrue(summary.getTruncatedJobs().isEmpty());
+        assertSame(summary, summary.without("a"));
+
+        jobs.remove("b");
+        jobs.remove("c");
+        summary = summary.without("b").without("c");
+        assertSameSummary(jobs, summary);
+        assertTrue(summary.getBoxes().isEmpty());
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generate a fake multi-module workspace with reports and files that are not
+ * reports.
+ *
+ * @author Gael COLIN
+ */
+public class WorkspaceGenerator {
+
+    private final int modules;
+    private final int depth;
+    private final int noise;
+    private final int issues;
+
+    /**
+     * @param modules the number of modules
+     * @param depth the number of folders between the workspace and a module
+     * @param noise the number of files in the excluded and source folders of
+     * each module
+     * @param issues the number of issues in each report
+     */
+    public WorkspaceGenerator(int modules, int depth, int noise, int issues) {
+        this.modules = modules;
+        this.depth = depth;
+        this.noise = noise;
+        this.issues = issues;
+    }
+
+    /**
+     * Generate the workspace.
+     *
+     * @param root the workspace
+     * @return the number of reports
+     * @throws IOException if a file cannot be written
+     */
+    public int generate(Path root) throws IOException {
+        int reports = 0;
+        for (int m = 0; m < modules; m++) {
+            Path module = root;
+            for (int d = 0; d < depth; d++) {
+                module = module.resolve("group" + (m % (d + 2)));
+            }
+            module = module.resolve("module" + m);
+            write(module.resolve("target/checkstyle-result.xml"), checkstyle());
+            write(module.resolve("target/pmd.xml"), pmd());
+            write(module.resolve("target/findbugs.xml"), findbugs());
+            write(module.resolve("target/surefire-reports/TEST-com.example.Module" + m + "Test.xml"), surefire(m));
+            reports += 4;
+            write(module.resolve("pom.xml"), "<project/>\n");
+            for (int i = 0; i < noise; i++) {
+                String dir;
+                switch (i % 4) {
+                    case 0:
+                        dir = "node_modules/lib" + (i % 10) + "/dist";
+                        break;
+                    case 1:
+                        dir = ".git/objects/" + (i % 16);
+                        break;
+                    case 2:
+                        dir = "target/classes/com/example";
+                        break;
+                    default:
+                        dir = "src/main/resources/com/example";
+                        break;
+                }
+                write(module.resolve(dir).resolve("file" + i + (i % 3 == 0 ? ".xml" : ".txt")), "<beans/>\n");
+            }
+        }
+        return reports;
+    }
+
+    private String checkstyle() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?>\n<checkstyle version=\"8.0\">\n");
+        for (int i = 0; i < issues; i++) {
+            if (i % 20 == 0) {
+                xml.append(i > 0 ? "</file>\n" : "").append("<file name=\"/src/Class").append(i / 20).append(".java\">\n");
+            }
+            xml.append("<error line=\"").append(i + 1).append("\" column=\"").append(i % 80)
+                    .append("\" severity=\"warning\" message=\"Line is longer than 120 characters.\" source=\"LineLengthCheck\"/>\n");
+        }
+        return xml.append(issues > 0 ? "</file>\n" : "").append("</checkstyle>\n").toString();
+    }
+
+    private String pmd() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?>\n<pmd version=\"5.8.1\">\n");
+        for (int i = 0; i < issues; i++) {
+            if (i % 20 == 0) {
+                xml.append(i > 0 ? "</file>\n" : "").append("<file name=\"/src/Class").append(i / 20).append(".java\">\n");
+            }
+            xml.append("<violation beginline=\"").append(i + 1).append("\" begincolumn=\"").append(i % 80)
+                    .append("\" rule=\"UnusedLocalVariable\" priority=\"").append(i % 5 + 1)
+                    .append("\">Avoid unused local variables such as 'v").append(i).append("'.</violation>\n");
+        }
+        return xml.append(issues > 0 ? "</file>\n" : "").append("</pmd>\n").toString();
+    }
+
+    private String findbugs() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?>\n<BugCollection version=\"3.0.1\">\n");
+        for (int i = 0; i < issues; i++) {
+            xml.append("<BugInstance type=\"NP_NULL_ON_SOME_PATH\" priority=\"").append(i % 3 + 1)
+                    .append("\" abbrev=\"NP\"><SourceLine classname=\"com.example.Class").append(i / 20)
+                    .append("\" start=\"").append(i + 1).append("\"/></BugInstance>\n");
+        }
+        return xml.append("</BugCollection>\n").toString();
+    }
+
+    private String surefire(int module) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?>\n<testsuite name=\"com.example.Module")
+                .append(module).append("Test\">\n");
+        for (int i = 0; i < issues; i++) {
+            xml.append("<testcase name=\"test").append(i).append("\" classname=\"com.example.Module").append(module)
+                    .append("Test\"><failure message=\"expected:&lt;1&gt; but was:&lt;2&gt;\">")
+                    .append("java.lang.AssertionError\n\tat com.example.Module").append(module)
+                    .append("Test.test(Module.java:").append(i + 1).append(")</failure></testcase>\n");
+        }
+        return xml.append("</testsuite>\n").toString();
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.write(content);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.ReportFile;
+import org.jenkinsci.plugins.reportinfo.model.ReportIndex;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNoException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Scan small workspaces with {@link AllNotificationBuilder}.
+ *
+ * @author Gael COLIN
+ */
+public class AllNotificationBuilderTest {
+
+    private static final String REPORT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<testsuite name=\"a.ATest\"><testcase classname=\"a.ATest\" name=\"test\">"
+            + "<failure message=\"expected 1\"/></testcase></testsuite>";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void linkedReports() throws IOException {
+        Path workspace = tmp.newFolder("workspace").toPath();
+        Path report = write(workspace.resolve("a/TEST-a.ATest.xml"));
+        Path outside = write(tmp.newFolder("outside").toPath().resolve("TEST-b.BTest.xml"));
+        Files.createDirectories(workspace.resolve("b"));
+        try {
+            Files.createSymbolicLink(workspace.resolve("b/TEST-a.ATest.xml"), Paths.get("../a/TEST-a.ATest.xml"));
+        } catch (UnsupportedOperationException | IOException ex) {
+            assumeNoException(ex);
+        }
+        Files.createSymbolicLink(workspace.resolve("b/TEST-b.BTest.xml"), outside);
+        Files.createSymbolicLink(workspace.resolve("b/TEST-c.CTest.xml"), workspace.resolve("a/missing.xml"));
+        Files.createSymbolicLink(workspace.resolve("c"), report.getParent());
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ReportIndex index = new ReportIndex();
+        new AllNotificationBuilder(index, workspace, new ScanOptions(),
+                new PrintStream(log, true, "UTF-8")).start();
+
+        List<String> paths = new ArrayList<>();
+        for (ReportFile file : index.getFiles()) {
+            paths.add(file.getPath());
+            assertEquals(file.getPath(), 1, file.getDetails().size());
+        }
+        Collections.sort(paths);
+        // the linked folders are not walked, as before the links were resolved
+        assertEquals(Arrays.asList("a/TEST-a.ATest.xml", "b/TEST-a.ATest.xml"), paths);
+        String text = new String(log.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(text, text.contains("Skip b/TEST-b.BTest.xml"));
+    }
+
+    @Test
+    public void oversizedCompressedReports() throws IOException {
+        Path workspace = tmp.newFolder("workspace").toPath();
+        write(workspace.resolve("a/TEST-a.ATest.xml"));
+        char[] output = new char[4096];
+        Arrays.fill(output, 'o');
+        byte[] large = REPORT.replace("</testcase>", "<system-out>" + new String(output) + "</system-out></testcase>")
+                .getBytes(StandardCharsets.UTF_8);
+        Files.createDirectories(workspace.resolve("b"));
+        Files.write(workspace.resolve("b/TEST-b.BTest.xml.gz"), gzip(large));
+        // the trailer announces 16 bytes, the parse counts the bytes read
+        byte[] lying = gzip(large);
+        lying[lying.length - 4] = 16;
+        lying[lying.length - 3] = 0;
+        Files.createDirectories(workspace.resolve("c"));
+        Files.write(workspace.resolve("c/TEST-c.CTest.xml.gz"), lying);
+        Files.createDirectories(workspace.resolve("d"));
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(workspace.resolve("d/reports.zip")))) {
+            zip.putNextEntry(new ZipEntry("TEST-d.DTest.xml"));
+            zip.write(large);
+            zip.putNextEntry(new ZipEntry("TEST-e.ETest.xml"));
+            zip.write(large);
+        }
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ReportIndex index = new ReportIndex();
+        ScanOptions options = new ScanOptions();
+        options.setMaxReportBytes(1024);
+        AllNotificationBuilder builder = new AllNotificationBuilder(index, workspace, options,
+                new PrintStream(log, true, "UTF-8"));
+        builder.start();
+
+        String text = new String(log.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(1, index.getFiles().size());
+        assertEquals("a/TEST-a.ATest.xml", index.getFiles().get(0).getPath());
+        List<String> skipped = new ArrayList<>(index.getSkipped());
+        Collections.sort(skipped);
+        assertEquals(text, Arrays.asList("b/TEST-b.BTest.xml.gz", "c/TEST-c.CTest.xml.gz", "d/reports.zip"), skipped);
+        assertEquals(4, builder.getMetrics().getSkipped());
+        assertTrue(text, text.contains("Skip c/TEST-c.CTest.xml.gz: over the size budget of 1024 byte(s)"));
+        // the next partial scans still visit the folders of the skipped reports
+        assertEquals(Arrays.asList("a", "b", "c", "d"), new ArrayList<>(index.getLocations()));
+    }
+
+    @Test
+    public void unchangedReportsNotRead() throws IOException {
+        Path workspace = tmp.newFolder("workspace").toPath();
+        Path report = write(workspace.resolve("a/TEST-a.ATest.xml"));
+        Path changed = write(workspace.resolve("b/TEST-b.BTest.xml"));
+        Map<String, ReportFile> previous = new HashMap<>();
+        previous.put("a/TEST-a.ATest.xml", new ReportFile("a/TEST-a.ATest.xml", Files.size(report),
+                Files.getLastModifiedTime(report).toMillis(), "h"));
+        previous.put("b/TEST-b.BTest.xml", new ReportFile("b/TEST-b.BTest.xml", Files.size(changed),
+                Files.getLastModifiedTime(changed).toMillis() - 1000, "h"));
+        // the same size and time, the content is not read again
+        Files.write(report, new byte[(int) Files.size(report)]);
+        Files.setLastModifiedTime(report, FileTime.fromMillis(previous.get("a/TEST-a.ATest.xml").getLastModified()));
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ReportIndex index = new ReportIndex();
+        AllNotificationBuilder builder = new AllNotificationBuilder(index, workspace, new ScanOptions(),
+                new PrintStream(log, true, "UTF-8"));
+        builder.setPrevious(previous);
+        builder.start();
+
+        String text = new String(log.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(text, 2, index.getFiles().size());
+        assertEquals(1, builder.getReused());
+        assertEquals(1, builder.getParsed());
+        for (ReportFile file : index.getFiles()) {
+            assertEquals(file.getPath(), file.getPath().startsWith("a/"), file.isReused());
+        }
+    }
+
+    @Test
+    public void limitsOfTheWholeScan() throws IOException {
+        Path workspace = tmp.newFolder("workspace").toPath();
+        String report = REPORT.replace("</testsuite>", "<testcase classname=\"a.ATest\" name=\"other\">"
+                + "<failure message=\"expected 2\"/></testcase></testsuite>");
+        for (String module : new String[]{"a", "b", "c"}) {
+            Path file = workspace.resolve(module + "/TEST-a.ATest.xml");
+            Files.createDirectories(file.getParent());
+            Files.write(file, report.getBytes(StandardCharsets.UTF_8));
+        }
+        ScanOptions options = new ScanOptions();
+        int[] limits = new int[NotificationType.values().length];
+        limits[NotificationType.TEST.ordinal()] = 3;
+        options.setLimits(limits, false);
+        ReportIndex index = new ReportIndex();
+        new AllNotificationBuilder(index, workspace, options, new PrintStream(new ByteArrayOutputStream())).start();
+
+        assertEquals(3, index.getFiles().size());
+        int details = 0;
+        int dropped = 0;
+        int total = 0;
+        for (ReportFile file : index.getFiles()) {
+            details += file.getDetails().size();
+            dropped += file.getDropped() == null ? 0 : file.getDropped().length;
+            total += file.getTotals()[NotificationType.TEST.ordinal()];
+        }
+        // the first reports keep 3 details, the others only count their issues
+        assertEquals(3, details);
+        assertEquals(3, dropped);
+        assertEquals(6, total);
+    }
+
+    @Test
+    public void parsersQueueFull() throws IOException {
+        Path workspace = tmp.newFolder("workspace").toPath();
+        for (int i = 0; i < 40; i++) {
+            write(workspace.resolve("m" + i + "/TEST-a.ATest.xml"));
+        }
+        ScanOptions options = new ScanOptions();
+        options.setThreads(2);
+        options.setQueueSize(1);
+        ReportIndex index = new ReportIndex();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        new AllNotificationBuilder(index, workspace, options, new PrintStream(log)).start();
+
+        // the reports not queued are parsed by the walker instead of rejected
+        assertEquals(log.toString(), 40, index.getFiles().size());
+        for (ReportFile file : index.getFiles()) {
+            assertEquals(file.getPath(), 1, file.getDetails().size());
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Path write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, REPORT.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compare the messages read by {@link FindBugs} with the messages of the
+ * DOM/XPath reader it replaced.
+ *
+ * @author Gael COLIN
+ */
+public class FindBugsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void sameMessagesAsTheDomReader() throws IOException {
+        assertEquals(Arrays.asList(
+                // the first SourceLine child, not the ones of the Class and Method
+                "NP: Possible null pointer dereference in a.A at [line 12]",
+                // no abbreviation, no description, no SourceLine
+                "XX_UNKNOWN_PATTERN: XX_UNKNOWN_PATTERN",
+                // not in a file element
+                "D&m: Reliance on default encoding at [line 7]",
+                "Se: Non-transient non-serializable instance field in serializable class in a.C&D at [line 42]",
+                "Se: Non-transient non-serializable instance field in serializable class in a.C&D",
+                "Dm: Reliance on default encoding in a.E at [line 9]"),
+                ReportFixtures.messages(tmp, "FindBugsTest.xml", "build/reports/findbugs/main.xml"));
+    }
+}
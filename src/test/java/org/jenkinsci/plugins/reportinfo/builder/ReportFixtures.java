@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.ReportFile;
+import org.jenkinsci.plugins.reportinfo.model.ReportIndex;
+import static org.junit.Assert.assertEquals;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Scan a workspace holding one report copied from the test resources.
+ *
+ * @author Gael COLIN
+ */
+final class ReportFixtures {
+
+    private ReportFixtures() {
+    }
+
+    /**
+     * Scan the fixture and get the messages displayed in the view.
+     *
+     * @param tmp the folder of the workspace
+     * @param resource the name of the fixture, next to the test class
+     * @param target the path of the report in the workspace
+     * @return the messages, in the order of the report
+     * @throws IOException if the workspace cannot be written
+     */
+    static List<String> messages(TemporaryFolder tmp, String resource, String target) throws IOException {
+        Path workspace = tmp.newFolder("workspace").toPath();
+        Path file = workspace.resolve(target);
+        Files.createDirectories(file.getParent());
+        try (InputStream in = ReportFixtures.class.getResourceAsStream(resource)) {
+            Files.copy(in, file);
+        }
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ReportIndex index = new ReportIndex();
+        new AllNotificationBuilder(index, workspace, new ScanOptions(), new PrintStream(log, true, "UTF-8")).start();
+        String text = new String(log.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(text, 1, index.getFiles().size());
+        ReportFile report = index.getFiles().get(0);
+        assertEquals(text, target, report.getPath());
+        List<String> messages = new ArrayList<>();
+        for (NotificationDetail detail : report.getDetails()) {
+            messages.add(detail.getMessage());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Test the compiled Ant-style patterns of {@link ReportMatcher}.
+ *
+ * @author Gael COLIN
+ */
+public class ReportMatcherTest {
+
+    private final Checkstyle checkstyle = new Checkstyle();
+    private final FindBugs findBugs = new FindBugs();
+    private final PMD pmd = new PMD();
+    private final Tests tests = new Tests();
+    private final NotificationBuilder[] all = {checkstyle, findBugs, pmd, tests};
+
+    private ReportMatcher defaults() {
+        return new ReportMatcher(all, new String[]{Checkstyle.DEFAULT_INCLUDES, FindBugs.DEFAULT_INCLUDES,
+            PMD.DEFAULT_INCLUDES, Tests.DEFAULT_INCLUDES});
+    }
+
+    @Test
+    public void defaultPatterns() {
+        ReportMatcher matcher = defaults();
+        assertSame(tests, matcher.match("TEST-a.ATest.xml"));
+        assertSame(tests, matcher.match("module/target/surefire-reports/TEST-a.ATest.xml"));
+        assertSame(checkstyle, matcher.match("target/checkstyle-result.xml"));
+        assertSame(checkstyle, matcher.match("a/b/build/reports/checkstyle/main.xml"));
+        assertSame(findBugs, matcher.match("findbugs.xml"));
+        assertSame(findBugs, matcher.match("build/reports/findbugs/test.xml"));
+        assertSame(pmd, matcher.match("x/pmd.xml"));
+        assertSame(pmd, matcher.match("build/reports/pmd/main.xml"));
+
+        assertNull(matcher.match("target/surefire-reports/a.ATest.txt"));
+        assertNull(matcher.match("target/TEST-a.ATest.xml.bak"));
+        assertNull(matcher.match("target/mypmd.xml"));
+        assertNull(matcher.match("build/reports/pmd/other.xml"));
+        // a '*' does not cross the directories
+        assertNull(matcher.match("TEST-a/b.xml"));
+    }
+
+    @Test
+    public void customPatterns() {
+        ReportMatcher matcher = new ReportMatcher(all, new String[]{"target/*.xml", " ,\\reports\\ ",
+            "a?c/p+m(d).xml", null});
+        assertSame(checkstyle, matcher.match("target/checkstyle.xml"));
+        assertNull(matcher.match("module/target/checkstyle.xml"));
+        assertNull(matcher.match("target/sub/checkstyle.xml"));
+        // a trailing '/' includes the whole folder, '\' is a separator
+        assertSame(findBugs, matcher.match("reports/findbugs.xml"));
+        assertSame(findBugs, matcher.match("reports/a/b/c.xml"));
+        // the regular expression characters are literals, '?' is one character
+        assertSame(pmd, matcher.match("abc/p+m(d).xml"));
+        assertNull(matcher.match("ac/p+m(d).xml"));
+        assertNull(matcher.match("abc/ppm(d).xml"));
+        // no pattern, no report
+        assertNull(matcher.match("TEST-a.ATest.xml"));
+    }
+
+    @Test
+    public void firstReaderWins() {
+        ReportMatcher matcher = new ReportMatcher(all, new String[]{"**/*.xml", "**/findbugs.xml", null, null});
+        assertSame(checkstyle, matcher.match("target/findbugs.xml"));
+    }
+
+    @Test
+    public void pruneDirectories() {
+        ReportMatcher matcher = new ReportMatcher(all, new String[]{"target/reports/*.xml", null,
+            "build/**/pmd/*.xml", null});
+        assertTrue(matcher.mayContain(""));
+        assertTrue(matcher.mayContain("target"));
+        assertTrue(matcher.mayContain("target/reports"));
+        assertFalse(matcher.mayContain("target/reports/old"));
+        assertFalse(matcher.mayContain("src"));
+        assertFalse(matcher.mayContain("module/target"));
+        // any folder under the first '**'
+        assertTrue(matcher.mayContain("build"));
+        assertTrue(matcher.mayContain("build/a"));
+        assertTrue(matcher.mayContain("build/a/b/pmd"));
+        assertFalse(matcher.mayContain("src/build"));
+
+        ReportMatcher everywhere = defaults();
+        assertTrue(everywhere.mayContain("any/folder"));
+    }
+
+    @Test
+    public void noPattern() {
+        ReportMatcher matcher = new ReportMatcher(all, new String[]{null, "", " , ", null});
+        assertNull(matcher.match("checkstyle-result.xml"));
+        assertFalse(matcher.mayContain("target"));
+        assertTrue(matcher.mayContain(""));
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.NotificationType;
+import org.jenkinsci.plugins.reportinfo.model.ReportFile;
+import org.jenkinsci.plugins.reportinfo.model.ReportIndex;
+import org.jenkinsci.plugins.reportinfo.model.Severity;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Test the stream of the notifications sent by the agent.
+ *
+ * @author Gael COLIN
+ */
+public class ReportStreamTest {
+
+    private static ReportIndex roundTrip(ReportIndex index) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportStream.write(index, out);
+        return ReportStream.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        ReportIndex index = new ReportIndex();
+        index.setLimits("10,0,0,0");
+        index.setIncludes("**/pmd.xml");
+        index.setPartialScans(3);
+        index.getSkipped().add("b/huge.xml");
+        index.getSkipped().add("c/reports.zip");
+
+        ReportFile parsed = new ReportFile("a/pmd.xml", 1234, 1500000000000L, "abc");
+        parsed.getDetails().add(new NotificationDetail(NotificationType.PMD, Severity.HIGH, "UnusedLocal",
+                "src/A.java", 12, 5, "Avoid unused local été"));
+        parsed.getDetails().add(new NotificationDetail(NotificationType.PMD, Severity.LOW, "UnusedLocal",
+                "src/A.java", 300, 0, null));
+        parsed.getDetails().add(new NotificationDetail(NotificationType.TEST, "a.ATest.test expected 1"));
+        parsed.setTotals(new int[]{1, 0, 12, 0});
+        parsed.setDropped(new long[]{Long.MIN_VALUE, 0, 42});
+        index.getFiles().add(parsed);
+
+        ReportFile reused = new ReportFile("a/TEST-a.ATest.xml", 10, 1400000000000L, null);
+        reused.setReused(true);
+        // not sent, the controller takes them from the previous build
+        reused.getDetails().add(new NotificationDetail(NotificationType.TEST, "a.ATest.test expected 2"));
+        index.getFiles().add(reused);
+
+        index.getFiles().add(new ReportFile("empty.xml", 0, 0, null));
+
+        ReportIndex read = roundTrip(index);
+        assertEquals("10,0,0,0", read.getLimits());
+        assertEquals("**/pmd.xml", read.getIncludes());
+        assertEquals(3, read.getPartialScans());
+        assertEquals(Arrays.asList("b/huge.xml", "c/reports.zip"), read.getSkipped());
+        assertEquals(index.getLocations(), read.getLocations());
+        assertEquals(3, read.getFiles().size());
+
+        ReportFile file = read.getFiles().get(0);
+        assertEquals("a/pmd.xml", file.getPath());
+        assertEquals(1234, file.getSize());
+        assertEquals(1500000000000L, file.getLastModified());
+        assertEquals("abc", file.getHash());
+        assertFalse(file.isReused());
+        assertArrayEquals(new int[]{1, 0, 12, 0}, file.getTotals());
+        assertArrayEquals(new long[]{Long.MIN_VALUE, 0, 42}, file.getDropped());
+        assertEquals(3, file.getDetails().size());
+        for (int i = 0; i < 3; i++) {
+            NotificationDetail expected = parsed.getDetails().get(i);
+            NotificationDetail actual = file.getDetails().get(i);
+            assertEquals(expected.getType(), actual.getType());
+            assertEquals(expected.getSeverity(), actual.getSeverity());
+            assertEquals(expected.getRule(), actual.getRule());
+            assertEquals(expected.getFile(), actual.getFile());
+            assertEquals(expected.getLine(), actual.getLine());
+            assertEquals(expected.getColumn(), actual.getColumn());
+            assertEquals(expected.getRawMessage(), actual.getRawMessage());
+            assertEquals(expected.getLegacyMessage(), actual.getLegacyMessage());
+        }
+        // the repeated strings are shared
+        assertSame(file.getDetails().get(0).getRule(), file.getDetails().get(1).getRule());
+        assertSame(file.getDetails().get(0).getFile(), file.getDetails().get(1).getFile());
+
+        file = read.getFiles().get(1);
+        assertEquals("a/TEST-a.ATest.xml", file.getPath());
+        assertTrue(file.isReused());
+        assertNull(file.getHash());
+        assertTrue(file.getDetails().isEmpty());
+        assertNull(file.getDropped());
+
+        file = read.getFiles().get(2);
+        assertFalse(file.isReused());
+        assertNull(file.getTotals());
+        assertNull(file.getDropped());
+        assertTrue(file.getDetails().isEmpty());
+    }
+
+    @Test
+    public void empty() throws IOException {
+        ReportIndex read = roundTrip(new ReportIndex());
+        assertNull(read.getLimits());
+        assertNull(read.getIncludes());
+        assertTrue(read.getSkipped().isEmpty());
+        assertTrue(read.getFiles().isEmpty());
+    }
+
+    @Test
+    public void notAStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(new byte[]{0, 0, 0, 1});
+        }
+        try {
+            ReportStream.read(new ByteArrayInputStream(bytes.toByteArray()));
+            fail();
+        } catch (IOException ex) {
+            assertEquals("not a report info stream", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jenkinsci.plugins.reportinfo.model.JobNotification;
+import org.jenkinsci.plugins.reportinfo.model.NotificationDetail;
+import org.jenkinsci.plugins.reportinfo.model.ReportIndex;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Compare the byte scanner of the Surefire reports with the StAX parser on the
+ * same reports.
+ *
+ * @author Gael COLIN
+ */
+public class SurefireReaderTest {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+
+    private final AllNotificationBuilder builder = new AllNotificationBuilder(new ReportIndex(), Paths.get("."),
+            new ScanOptions(), System.out);
+
+    @Test
+    public void cdata() throws IOException {
+        List<String> details = assertReadAlike(HEADER + "<testsuite name=\"a.ATest\">"
+                + "<testcase classname=\"a.ATest\" name=\"first\">"
+                + "<failure message=\"expected\" type=\"AssertionError\"><![CDATA[at a.ATest.first"
+                + " </failure></testcase><testcase name=\"fake\"><error message=\"fake\"/>]]></failure>"
+                + "<system-out><![CDATA[<testcase name=\"out\"><failure message=\"out\"/>]]></system-out>"
+                + "</testcase>"
+                + "<testcase classname=\"a.ATest\" name=\"second\"><error type=\"java.io.IOException\"/></testcase>"
+                + "</testsuite>");
+        assertEquals(Arrays.asList("first|a.ATest|expected", "second|a.ATest|java.io.IOException"), details);
+    }
+
+    @Test
+    public void entities() throws IOException {
+        List<String> details = assertReadAlike(HEADER + "<testsuite>"
+                + "<testcase classname=\"a.&#65;&#x42;Test\" name=\"t&apos;s\">"
+                + "<failure message=\"a &lt; b &amp;&amp; c &gt; d &quot;q&quot; &#233;&#x1F600;&#10;next\"/>"
+                + "</testcase></testsuite>");
+        assertEquals(Arrays.asList("t's|a.ABTest|a < b && c > d \"q\" é😀\nnext"), details);
+    }
+
+    @Test
+    public void whiteSpaces() throws IOException {
+        List<String> details = assertReadAlike(HEADER + "<testsuite><testcase classname=\"a.ATest\" name=\"t\">"
+                + "<failure message=\"line 1\nline 2\tend\r\nlast\"/></testcase></testsuite>");
+        assertEquals(Arrays.asList("t|a.ATest|line 1 line 2 end last"), details);
+    }
+
+    @Test
+    public void iso88591() throws IOException {
+        byte[] report = ("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n<testsuite>"
+                + "<testcase classname=\"a.ÉtéTest\" name=\"café\"><failure message=\"à ÿ\"/>"
+                + "</testcase></testsuite>").getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(Arrays.asList("café|a.ÉtéTest|à ÿ"), assertReadAlike(report));
+    }
+
+    @Test
+    public void utf8Bom() throws IOException {
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        report.write(new byte[]{(byte) 0xef, (byte) 0xbb, (byte) 0xbf});
+        report.write((HEADER + "<testsuite><testcase classname=\"a.ATest\" name=\"é\">"
+                + "<failure message=\"€\"/></testcase></testsuite>").getBytes(StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("é|a.ATest|€"), assertReadAlike(report.toByteArray()));
+    }
+
+    @Test
+    public void utf16Fallback() throws IOException {
+        String text = "<?xml version=\"1.0\" encoding=\"UTF-16\"?>\n<testsuite>"
+                + "<testcase classname=\"a.ATest\" name=\"t\"><failure message=\"é\"/></testcase></testsuite>";
+        byte[] report = text.getBytes(StandardCharsets.UTF_16);
+        assertFalse(new SurefireReader(ByteBuffer.wrap(report)).prepare());
+        List<String> expected = Arrays.asList("t|a.ATest|é");
+        assertEquals(expected, stax(report));
+        // the scanner gives the report to the XML parser with the bytes already read
+        assertEquals(expected, stream(report));
+        assertFalse(new SurefireReader(ByteBuffer.wrap(text.replace("UTF-16", "UTF-32")
+                .getBytes(Charset.forName("UTF-32")))).prepare());
+    }
+
+    @Test
+    public void greaterThanInAttributes() throws IOException {
+        List<String> details = assertReadAlike(HEADER + "<testsuite name=\"a > b\">"
+                + "<testcase classname=\"a.ATest\" name=\"x>y\" time=\"1\">"
+                + "<failure type=\"T\" message='1 > 0 is \"wrong\"'/>"
+                + "</testcase></testsuite>");
+        assertEquals(Arrays.asList("x>y|a.ATest|1 > 0 is \"wrong\""), details);
+    }
+
+    @Test
+    public void selfClosingTestcase() throws IOException {
+        List<String> details = assertReadAlike(HEADER + "<testsuite>"
+                + "<testcase classname=\"a.ATest\" name=\"passed\"/>"
+                + "<testcase classname=\"a.ATest\" name=\"passed2\" />"
+                + "<testcase classname = \"a.ATest\"\n    name=\"failed\"><failure message=\"m\"/></testcase>"
+                + "<testcase classname=\"a.ATest\" name=\"skipped\"><skipped message=\"s\"/></testcase>"
+                + "<testcase classname=\"a.ATest\" name=\"passed3\"/>"
+                + "</testsuite>");
+        assertEquals(Arrays.asList("failed|a.ATest|m"), details);
+    }
+
+    @Test
+    public void commentsAndDoctype() throws IOException {
+        List<String> details = assertReadAlike(HEADER + "<!DOCTYPE testsuite [<!ELEMENT testsuite ANY>]>"
+                + "<!-- <testcase name=\"comment\"><failure message=\"no\"/></testcase> -->"
+                + "<testsuite><testcase classname=\"a.ATest\" name=\"t\"><!-- <failure message=\"no\"/> -->"
+                + "<error message=\"yes\"/></testcase></testsuite>");
+        assertEquals(Arrays.asList("t|a.ATest|yes"), details);
+    }
+
+    @Test
+    public void otherRoot() throws IOException {
+        assertEquals(new ArrayList<String>(), assertReadAlike(HEADER + "<testsuites><testcase classname=\"a\" name=\"t\">"
+                + "<failure message=\"m\"/></testcase></testsuites>"));
+    }
+
+    @Test
+    public void largerThanWindow() throws IOException {
+        StringBuilder report = new StringBuilder(HEADER).append("<testsuite>");
+        char[] output = new char[1000];
+        Arrays.fill(output, 'o');
+        for (int i = 0; i < 500; i++) {
+            report.append("<testcase classname=\"a.ATest\" name=\"t").append(i).append("\">");
+            if (i % 3 == 0) {
+                report.append("<failure message=\"m").append(i).append("\">trace</failure>");
+            }
+            report.append("<system-out>").append(output).append("</system-out></testcase>");
+        }
+        report.append("</testsuite>");
+        List<String> details = assertReadAlike(report.toString());
+        assertEquals(167, details.size());
+        assertEquals("t498|a.ATest|m498", details.get(166));
+    }
+
+    private List<String> assertReadAlike(String report) throws IOException {
+        return assertReadAlike(report.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read a report with the XML parser, the buffered scanner and the streamed
+     * scanner, and check that they find the same details.
+     */
+    private List<String> assertReadAlike(byte[] report) throws IOException {
+        List<String> expected = stax(report);
+        SurefireReader reader = new SurefireReader(ByteBuffer.wrap(report));
+        assertTrue(reader.prepare());
+        JobNotification jn = new JobNotification();
+        reader.read(jn, builder);
+        assertEquals("buffered", expected, details(jn));
+        assertEquals("streamed", expected, stream(report));
+        return expected;
+    }
+
+    private List<String> stax(byte[] report) {
+        JobNotification jn = new JobNotification();
+        new Tests().parseXml(new ByteArrayInputStream(report), jn, builder);
+        return details(jn);
+    }
+
+    private List<String> stream(byte[] report) {
+        JobNotification jn = new JobNotification();
+        new Tests().parse(new ByteArrayInputStream(report), jn, builder);
+        return details(jn);
+    }
+
+    private static List<String> details(JobNotification jn) {
+        List<String> details = new ArrayList<>();
+        for (NotificationDetail detail : jn.getList()) {
+            details.add(detail.getRule() + "|" + detail.getFile() + "|" + detail.getRawMessage());
+        }
+        return details;
+    }
+}
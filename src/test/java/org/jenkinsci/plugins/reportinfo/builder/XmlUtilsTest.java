@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.builder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ * Test the detection of the root element of the reports.
+ *
+ * @author Gael COLIN
+ */
+public class XmlUtilsTest {
+
+    @Test
+    public void skipPrologue() {
+        assertEquals("pmd", XmlUtils.rootElement("<pmd version=\"5.5\">"));
+        assertEquals("testsuite", XmlUtils.rootElement("<?xml version=\"1.0\"?>\n<testsuite name=\"a\">"));
+        assertEquals("BugCollection", XmlUtils.rootElement("<?xml version=\"1.0\"?><?xml-stylesheet href=\"a\"?>"
+                + "<!-- a <comment> --><!DOCTYPE BugCollection><BugCollection>"));
+        assertEquals("checkstyle", XmlUtils.rootElement("<!DOCTYPE checkstyle [<!ENTITY a \"<b>\">]>\n<checkstyle>"));
+        assertEquals("pmd", XmlUtils.rootElement("<pmd/>"));
+        assertEquals("testsuite", XmlUtils.rootElement("<ns:testsuite xmlns:ns=\"urn:a\">"));
+    }
+
+    @Test
+    public void notFound() {
+        assertNull(XmlUtils.rootElement(""));
+        assertNull(XmlUtils.rootElement("not xml"));
+        assertNull(XmlUtils.rootElement("<?xml version=\"1.0\"?><!-- a comment not closed"));
+        assertNull(XmlUtils.rootElement("<?xml version=\"1.0\"?><testsu"));
+        assertNull(XmlUtils.rootElement("<"));
+    }
+
+    @Test
+    public void encodings() throws IOException {
+        String text = "<?xml version=\"1.0\" encoding=\"UTF-16\"?><testsuite/>";
+        assertEquals("testsuite", rootElement(bom(new byte[]{(byte) 0xfe, (byte) 0xff},
+                text.getBytes(StandardCharsets.UTF_16BE))));
+        assertEquals("testsuite", rootElement(bom(new byte[]{(byte) 0xff, (byte) 0xfe},
+                text.getBytes(StandardCharsets.UTF_16LE))));
+        assertEquals("pmd", rootElement("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><!-- é --><pmd>"
+                .getBytes(StandardCharsets.ISO_8859_1)));
+        assertEquals("pmd", rootElement(bom(new byte[]{(byte) 0xef, (byte) 0xbb, (byte) 0xbf},
+                "<pmd>".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void onlyFirstBytes() throws IOException {
+        char[] comment = new char[64 * 1024];
+        Arrays.fill(comment, 'a');
+        String text = "<!--" + new String(comment) + "--><pmd>";
+        assertEquals("pmd", XmlUtils.rootElement(text));
+        assertNull(rootElement(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String rootElement(byte[] bytes) throws IOException {
+        return XmlUtils.rootElement(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] bom(byte[] bom, byte[] text) {
+        byte[] bytes = Arrays.copyOf(bom, bom.length + text.length);
+        System.arraycopy(text, 0, bytes, bom.length, text.length);
+        return bytes;
+    }
+}
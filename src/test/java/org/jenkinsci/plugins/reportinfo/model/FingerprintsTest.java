@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.model;
+
+import java.util.Arrays;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import org.junit.Test;
+
+/**
+ * Test the fingerprints of the issues.
+ *
+ * @author Gael COLIN
+ */
+public class FingerprintsTest {
+
+    private static NotificationDetail pmd(String rule, String file, int line, String message) {
+        return new NotificationDetail(NotificationType.PMD, Severity.NORMAL, rule, file, line, 0, message);
+    }
+
+    @Test
+    public void ignoreLinesAndNumbers() {
+        long fingerprint = Fingerprints.of(pmd("UnusedLocal", "A.java", 10, "Avoid unused local x1 in 12 places"));
+        assertEquals(fingerprint, Fingerprints.of(pmd("UnusedLocal", "A.java", 42, "Avoid unused local x1 in 12 places")));
+        assertEquals(fingerprint, Fingerprints.of(pmd("UnusedLocal", "A.java", 10, "Avoid unused local x7 in 3 places")));
+        assertEquals(fingerprint, Fingerprints.of(pmd("UnusedLocal", "A.java", 10, "Avoid  unused\tlocal x1 in 12 places")));
+        assertNotEquals(fingerprint, Fingerprints.of(pmd("UnusedLocal", "A.java", 10, "Avoid unused local y1 in 12 places")));
+        assertNotEquals(fingerprint, Fingerprints.of(pmd("UnusedLocal", "B.java", 10, "Avoid unused local x1 in 12 places")));
+        assertNotEquals(fingerprint, Fingerprints.of(pmd("UnusedField", "A.java", 10, "Avoid unused local x1 in 12 places")));
+        assertNotEquals(fingerprint, Fingerprints.of(new NotificationDetail(NotificationType.CHECKSTYLE, Severity.NORMAL,
+                "UnusedLocal", "A.java", 10, 0, "Avoid unused local x1 in 12 places")));
+    }
+
+    @Test
+    public void withoutDetail() {
+        assertEquals(Fingerprints.of(pmd("UnusedLocal", "A.java", 10, "Avoid unused local x")),
+                Fingerprints.of(NotificationType.PMD, "UnusedLocal", "A.java", "Avoid unused local x"));
+        assertEquals(Fingerprints.of(pmd(null, null, 0, null)), Fingerprints.of(NotificationType.PMD, null, null, null));
+    }
+
+    @Test
+    public void separateFields() {
+        // the same characters split differently between the rule and the file
+        assertNotEquals(Fingerprints.of(pmd("ab", "c", 1, null)), Fingerprints.of(pmd("a", "bc", 1, null)));
+        assertNotEquals(Fingerprints.of(pmd(null, "a", 1, null)), Fingerprints.of(pmd("a", null, 1, null)));
+        // the numbers are only normalized in the message
+        assertNotEquals(Fingerprints.of(pmd("r", "A1.java", 1, null)), Fingerprints.of(pmd("r", "A2.java", 1, null)));
+    }
+
+    @Test
+    public void legacyMessage() {
+        NotificationDetail legacy = new NotificationDetail(NotificationType.TEST, "a.ATest.test expected 1");
+        assertEquals(Fingerprints.of(legacy),
+                Fingerprints.of(new NotificationDetail(NotificationType.TEST, "a.ATest.test expected 2")));
+    }
+
+    @Test
+    public void sortedMultisets() {
+        NotificationDetail a = pmd("a", "A.java", 1, "m");
+        NotificationDetail b = pmd("b", "B.java", 1, "m");
+        long[] fingerprints = Fingerprints.of(Arrays.asList(b, a, b));
+        long[] expected = {Fingerprints.of(a), Fingerprints.of(b), Fingerprints.of(b)};
+        Arrays.sort(expected);
+        assertArrayEquals(expected, fingerprints);
+    }
+
+    @Test
+    public void subtract() {
+        long[] current = {1, 2, 2, 2, 5, 9};
+        long[] previous = {2, 3, 5, 5, 9, 10};
+        assertArrayEquals(new long[]{1, 2, 2}, Fingerprints.subtract(current, previous));
+        assertArrayEquals(new long[]{3, 5, 10}, Fingerprints.subtract(previous, current));
+        assertArrayEquals(current, Fingerprints.subtract(current, new long[0]));
+        assertArrayEquals(new long[0], Fingerprints.subtract(new long[0], previous));
+        assertArrayEquals(new long[0], Fingerprints.subtract(current, current));
+        assertArrayEquals(new long[]{Long.MIN_VALUE}, Fingerprints.subtract(new long[]{Long.MIN_VALUE, -1},
+                new long[]{-1, Long.MAX_VALUE}));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Gael COLIN.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.reportinfo.model;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.jenkinsci.plugins.reportinfo.builder.AllNotificationBuilder;
+import org.jenkinsci.plugins.reportinfo.builder.Checkstyle;
+import org.jenkinsci.plugins.reportinfo.builder.ScanOptions;
+import org.junit.Test;
+
+/**
+ * Test the limits and the new issues of {@link JobNotification}.
+ *
+ * @author Gael COLIN
+ */
+public class JobNotificationTest {
+
+    private static NotificationDetail pmd(String rule, Severity severity) {
+        return new NotificationDetail(NotificationType.PMD, severity, rule, "A.java", 1, 0, "m");
+    }
+
+    private static int[] limits(NotificationType type, int limit) {
+        int[] limits = new int[NotificationType.values().length];
+        limits[type.ordinal()] = limit;
+        return limits;
+    }
+
+    @Test
+    public void newDuplicates() {
+        JobNotification jn = new JobNotification();
+        NotificationDetail a1 = pmd("a", Severity.NORMAL);
+        NotificationDetail a2 = pmd("a", Severity.NORMAL);
+        NotificationDetail a3 = pmd("a", Severity.NORMAL);
+        NotificationDetail b = pmd("b", Severity.NORMAL);
+        jn.getList().addAll(Arrays.asList(a1, a2, a3, b));
+        assertFalse(jn.isNew(a1));
+
+        // the previous build had a once and b once: a is new twice
+        long[] previous = Fingerprints.of(Arrays.asList(pmd("a", Severity.NORMAL), pmd("b", Severity.NORMAL)));
+        jn.setNewFingerprints(Fingerprints.subtract(jn.getFingerprints(), previous));
+        int newCount = 0;
+        for (NotificationDetail detail : jn.getList()) {
+            if (jn.isNew(detail)) {
+                newCount++;
+            }
+        }
+        assertEquals(2, newCount);
+        assertFalse(jn.isNew(b));
+    }
+
+    @Test
+    public void sharedLimits() {
+        AtomicIntegerArray accepted = new AtomicIntegerArray(NotificationType.values().length);
+        JobNotification first = new JobNotification();
+        first.setLimits(limits(NotificationType.PMD, 3), false);
+        first.shareLimits(accepted);
+        JobNotification second = new JobNotification();
+        second.setLimits(limits(NotificationType.PMD, 3), false);
+        second.shareLimits(accepted);
+
+        assertTrue(first.offer(NotificationType.PMD, Severity.LOW));
+        assertTrue(first.offer(NotificationType.PMD, Severity.LOW));
+        assertTrue(second.offer(NotificationType.PMD, Severity.LOW));
+        // the limit is reached by the two lists together
+        assertFalse(second.offer(NotificationType.PMD, Severity.HIGH));
+        assertFalse(first.offer(NotificationType.PMD, Severity.LOW));
+        // no limit for the other types
+        assertTrue(second.offer(NotificationType.TEST, Severity.NORMAL));
+        assertArrayEquals(new int[]{1, 0, 2, 0}, second.getTotalCounts());
+
+        // a discarded list gives its details back
+        first.releaseLimits();
+        assertEquals(1, accepted.get(NotificationType.PMD.ordinal()));
+        assertTrue(second.offer(NotificationType.PMD, Severity.LOW));
+    }
+
+    @Test
+    public void limitsBySeverityNotShared() {
+        AtomicIntegerArray accepted = new AtomicIntegerArray(NotificationType.values().length);
+        JobNotification first = new JobNotification();
+        first.setLimits(limits(NotificationType.PMD, 1), true);
+        first.shareLimits(accepted);
+        JobNotification second = new JobNotification();
+        second.setLimits(limits(NotificationType.PMD, 1), true);
+        second.shareLimits(accepted);
+        assertTrue(first.offer(NotificationType.PMD, Severity.LOW));
+        assertTrue(second.offer(NotificationType.PMD, Severity.LOW));
+        assertEquals(0, accepted.get(NotificationType.PMD.ordinal()));
+    }
+
+    @Test
+    public void fingerprintsOfDroppedIssues() {
+        JobNotification jn = new JobNotification();
+        jn.setLimits(limits(NotificationType.PMD, 1), true);
+        NotificationDetail low = pmd("low", Severity.LOW);
+        NotificationDetail high = pmd("high", Severity.HIGH);
+        assertTrue(jn.offer(NotificationType.PMD, Severity.LOW));
+        jn.getList().add(low);
+        // replaces the low detail, removed by trim
+        assertTrue(jn.offer(NotificationType.PMD, Severity.HIGH));
+        jn.getList().add(high);
+        assertFalse(jn.offer(NotificationType.PMD, Severity.NORMAL));
+        jn.drop(NotificationType.PMD, "normal", "A.java", "m");
+        jn.trim();
+
+        assertEquals(Arrays.asList(high), jn.getList());
+        long[] expected = Fingerprints.of(Arrays.asList(low, high, pmd("normal", Severity.NORMAL)));
+        assertArrayEquals(expected, jn.getFingerprints());
+        long[] dropped = jn.getDropped();
+        Arrays.sort(dropped);
+        assertArrayEquals(Fingerprints.of(Arrays.asList(low, pmd("normal", Severity.NORMAL))), dropped);
+        assertNull(new JobNotification().getDropped());
+    }
+
+    @Test
+    public void parserDropsOverLimit() {
+        String report = "<checkstyle><file name=\"A.java\">"
+                + "<error line=\"1\" severity=\"error\" message=\"m1\" source=\"r1\"/>"
+                + "<error line=\"2\" severity=\"error\" message=\"m2\" source=\"r2\"/>"
+                + "<error line=\"3\" severity=\"error\" message=\"m3\" source=\"r3\"/>"
+                + "</file></checkstyle>";
+        JobNotification jn = new JobNotification();
+        jn.setLimits(limits(NotificationType.CHECKSTYLE, 1), false);
+        new Checkstyle().parse(new ByteArrayInputStream(report.getBytes(StandardCharsets.UTF_8)), jn,
+                new AllNotificationBuilder(new ReportIndex(), Paths.get("."), new ScanOptions(), System.out));
+
+        assertEquals(1, jn.getList().size());
+        long[] expected = new long[3];
+        for (int i = 0; i < 3; i++) {
+            expected[i] = Fingerprints.of(NotificationType.CHECKSTYLE, "r" + (i + 1), "A.java", "m" + (i + 1));
+        }
+        Arrays.sort(expected);
+        assertArrayEquals(expected, jn.getFingerprints());
+    }
+}